@@ -0,0 +1,259 @@
+package http;
+
+import manager.Managers;
+import manager.TaskManager;
+import tasks.Task;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Нагрузочный тест HTTP API: каждый клиент держит одно keep-alive соединение и без пауз отправляет запросы.
+// Смесь запросов: 90% GET /tasks/{id}, 10% POST /tasks с обновлением задачи.
+// Сервер с ConcurrentTaskManager запускается в том же процессе, замеры начинаются после прогрева.
+// Печатает устойчивую пропускную способность и процентили задержки.
+// Запуск: java http.HttpLoadTest [соединений=2000] [секунд=30] [задач=10000] [прогрев, секунд=5]
+public class HttpLoadTest {
+    private static final int WRITE_PERCENT = 10;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int taskCount = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        TaskManager manager = Managers.getConcurrent();
+        for (int i = 0; i < taskCount; i++) {
+            manager.addTask(new Task("Задача " + i, "Описание задачи " + i));
+        }
+
+        HttpTaskServer server = new HttpTaskServer(manager, 0);
+        server.start();
+        System.out.printf("Сервер на порту %d, %d задач, %d соединений, прогрев %d с, замер %d с%n",
+                server.getPort(), taskCount, connections, warmupSeconds, seconds);
+
+        CountDownLatch connected = new CountDownLatch(connections);
+        long start = System.nanoTime() + 1_000_000_000L;
+        long measureFrom = start + warmupSeconds * 1_000_000_000L;
+        long deadline = measureFrom + seconds * 1_000_000_000L;
+
+        ExecutorService clients = newClientExecutor();
+        Future<?>[] results = new Future<?>[connections];
+        Client[] clientList = new Client[connections];
+        for (int i = 0; i < connections; i++) {
+            Client client = new Client(server.getPort(), taskCount, i, connected, measureFrom, deadline);
+            clientList[i] = client;
+            results[i] = clients.submit(client);
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        clients.shutdown();
+        server.stop();
+
+        report(List.of(clientList), seconds);
+    }
+
+    // Клиенту нужен поток на соединение: тысячи виртуальных потоков (JDK 21+) или платформенных
+    private static ExecutorService newClientExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private static void report(List<Client> clients, int seconds) {
+        int total = 0;
+        long errors = 0;
+        for (Client client : clients) {
+            total += client.count;
+            errors += client.errors;
+        }
+
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+            offset += client.count;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("Запросов: %d, ошибок: %d, %.0f запросов/с%n", total, errors, (double) total / seconds);
+        if (total > 0) {
+            System.out.printf("Задержка, мс: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                    millis(latencies, 0.5), millis(latencies, 0.9), millis(latencies, 0.99),
+                    millis(latencies, 0.999), latencies[total - 1] / 1e6);
+        }
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static final class Client implements Runnable {
+        private final int port;
+        private final int taskCount;
+        private final Random random;
+        private final CountDownLatch connected;
+        private final long measureFrom;
+        private final long deadline;
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        Client(int port, int taskCount, int seed, CountDownLatch connected, long measureFrom, long deadline) {
+            this.port = port;
+            this.taskCount = taskCount;
+            this.random = new Random(seed);
+            this.connected = connected;
+            this.measureFrom = measureFrom;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            boolean first = true;
+            while (System.nanoTime() < deadline) {
+                try (Socket socket = new Socket()) {
+                    socket.setTcpNoDelay(true);
+                    socket.connect(new InetSocketAddress("localhost", port));
+                    if (first) {
+                        // Все соединения открываются до начала нагрузки
+                        first = false;
+                        connected.countDown();
+                        connected.await();
+                    }
+                    OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                    InputStream in = new BufferedInputStream(socket.getInputStream());
+                    runRequests(out, in);
+                } catch (IOException e) {
+                    // Соединение разорвано: считаем ошибкой и подключаемся заново
+                    errors++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    if (first) {
+                        first = false;
+                        connected.countDown();
+                    }
+                }
+            }
+        }
+
+        private void runRequests(OutputStream out, InputStream in) throws IOException {
+            long now;
+            while ((now = System.nanoTime()) < deadline) {
+                int id = 1 + random.nextInt(taskCount);
+                byte[] request = random.nextInt(100) < WRITE_PERCENT ? post(id) : get(id);
+
+                out.write(request);
+                out.flush();
+                int status = readResponse(in);
+                long elapsed = System.nanoTime() - now;
+
+                if (status >= 400) {
+                    errors++;
+                } else if (now >= measureFrom) {
+                    record(elapsed);
+                }
+            }
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        private byte[] get(int id) {
+            return ("GET /tasks/" + id + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        private byte[] post(int id) {
+            byte[] body = ("{\"id\":" + id + ",\"name\":\"Задача " + id + "\",\"status\":\"IN_PROGRESS\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            byte[] head = ("POST /tasks HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+                    + "Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+            byte[] request = Arrays.copyOf(head, head.length + body.length);
+            System.arraycopy(body, 0, request, head.length, body.length);
+            return request;
+        }
+
+        // Читает ответ целиком (по Content-Length или по частям chunked) и возвращает код статуса
+        private static int readResponse(InputStream in) throws IOException {
+            String statusLine = readLine(in);
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+
+            long length = -1;
+            boolean chunked = false;
+            String header;
+            while (!(header = readLine(in)).isEmpty()) {
+                int colon = header.indexOf(':');
+                String name = header.substring(0, colon).trim();
+                String value = header.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Content-Length")) {
+                    length = Long.parseLong(value);
+                } else if (name.equalsIgnoreCase("Transfer-Encoding") && value.equalsIgnoreCase("chunked")) {
+                    chunked = true;
+                }
+            }
+
+            if (chunked) {
+                long chunk;
+                while ((chunk = Long.parseLong(readLine(in).trim(), 16)) > 0) {
+                    skip(in, chunk);
+                    readLine(in);
+                }
+                readLine(in);
+            } else if (length > 0) {
+                skip(in, length);
+            }
+            return status;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new EOFException("Соединение закрыто сервером");
+                }
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+            return line.toString();
+        }
+
+        private static void skip(InputStream in, long bytes) throws IOException {
+            for (long remaining = bytes; remaining > 0; ) {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    if (in.read() < 0) {
+                        throw new EOFException("Соединение закрыто сервером");
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package manager;
+
+import java.util.Random;
+
+// Общие данные бенчмарков: фиксированное зерно, чтобы прогоны были сравнимы между собой
+final class BenchmarkData {
+    private static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    static <T> void shuffle(T[] items) {
+        Random random = new Random(SEED);
+        for (int i = items.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            T item = items[i];
+            items[i] = items[j];
+            items[j] = item;
+        }
+    }
+}
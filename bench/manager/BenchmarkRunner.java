@@ -0,0 +1,119 @@
+package manager;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Запуск бенчмарков с профилированием выделений памяти (GCProfiler).
+// Аргументы: регулярное выражение для отбора бенчмарков (по умолчанию все) и флаг --baseline.
+// Результат пишется в bench/results/latest.csv и сравнивается с bench/results/baseline.csv;
+// с флагом --baseline результат сам становится базой для следующих сравнений.
+// База в репозитории не хранится: цифры зависят от машины, поэтому ее снимают локально
+// запуском с --baseline (например, на коммите до изменения), а затем запускают без флага.
+public class BenchmarkRunner {
+    private static final Path RESULTS = Path.of("bench", "results");
+    private static final Path BASELINE = RESULTS.resolve("baseline.csv");
+    // Все бенчмарки меряют время или память на операцию: рост больше чем на 10% считается регрессией
+    private static final double REGRESSION_THRESHOLD = 1.10;
+    // Кроме времени сравнивается только нормированное выделение памяти, остальные метрики профилировщика шумные
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = ".*Benchmark.*";
+        boolean baseline = false;
+        for (String arg : args) {
+            if (arg.equals("--baseline")) {
+                baseline = true;
+            } else {
+                include = arg;
+            }
+        }
+
+        Files.createDirectories(RESULTS);
+        Path output = baseline ? BASELINE : RESULTS.resolve("latest.csv");
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.CSV)
+                .result(output.toString())
+                .build();
+        new Runner(options).run();
+
+        if (baseline) {
+            return;
+        }
+        if (Files.exists(BASELINE)) {
+            compare(readScores(BASELINE), readScores(output));
+        } else {
+            System.out.println("Базы для сравнения нет: снимите ее запуском с флагом --baseline");
+        }
+    }
+
+    private static void compare(Map<String, Double> baseline, Map<String, Double> latest) {
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : latest.entrySet()) {
+            Double base = baseline.get(entry.getKey());
+            if (base == null || base == 0) {
+                continue;
+            }
+            double ratio = entry.getValue() / base;
+            if (ratio > REGRESSION_THRESHOLD) {
+                regressions++;
+                System.out.printf("РЕГРЕССИЯ %s: %.3f -> %.3f (x%.2f)%n", entry.getKey(), base, entry.getValue(), ratio);
+            }
+        }
+        System.out.println(regressions == 0 ? "Регрессий относительно базы нет" : "Регрессий: " + regressions);
+    }
+
+    // Ключ - имя бенчмарка, режим и параметры; значение - оценка
+    private static Map<String, Double> readScores(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        List<String> header = splitRow(lines.get(0));
+        int score = header.indexOf("Score");
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> row = splitRow(line);
+            String benchmark = row.get(0);
+            if (benchmark.contains(":") && !benchmark.endsWith(ALLOCATION_METRIC)) {
+                continue;
+            }
+
+            StringBuilder key = new StringBuilder(benchmark).append(' ').append(row.get(1));
+            for (int i = 0; i < row.size(); i++) {
+                if (header.get(i).startsWith("Param: ")) {
+                    key.append(' ').append(header.get(i).substring("Param: ".length())).append('=').append(row.get(i));
+                }
+            }
+            scores.put(key.toString(), Double.parseDouble(row.get(score)));
+        }
+        return scores;
+    }
+
+    // Строка CSV из JMH: поля в кавычках, запятых внутри полей нет
+    private static List<String> splitRow(String line) {
+        List<String> fields = new ArrayList<>();
+        for (String field : line.split(",", -1)) {
+            field = field.trim();
+            if (field.length() >= 2 && field.startsWith("\"") && field.endsWith("\"")) {
+                field = field.substring(1, field.length() - 1);
+            }
+            fields.add(field);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,124 @@
+package manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.util.concurrent.TimeUnit;
+
+// Разбор одной строки CSV: прежний разбор через split против разбора по смещениям.
+// Поля без запятых и кавычек и задачи без времени, чтобы оба разбора извлекали одно и то же; время на одну строку
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CSVCodecBenchmark {
+    private static final int LINES = 1_000;
+
+    public enum Parser {
+        // Прежний CSVTaskFormatter.fromString: split по запятой и подстрока на каждое поле
+        SPLIT,
+        // Отдельная строка на каждую запись, как при чтении по строкам
+        OFFSET,
+        // Смещения в общем буфере, как при загрузке файла целиком
+        OFFSET_BUFFER
+    }
+
+    @Param({"SPLIT", "OFFSET", "OFFSET_BUFFER"})
+    Parser parser;
+
+    private String[] lines;
+    private String buffer;
+    private int[] offsets;
+
+    @Setup
+    public void prepare() {
+        lines = new String[LINES];
+        offsets = new int[LINES + 1];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            Task task;
+            if (i % 10 == 0) {
+                task = new Epic("Эпик " + i, "Описание эпика номер " + i);
+            } else if (i % 2 == 0) {
+                task = new Subtask("Подзадача " + i, "Описание подзадачи номер " + i, Status.IN_PROGRESS, i - i % 10 + 1);
+            } else {
+                task = new Task("Задача " + i, "Описание задачи номер " + i);
+            }
+            task.setId(i + 1);
+            lines[i] = CSVTaskFormatter.toString(task);
+            offsets[i] = text.length();
+            text.append(lines[i]).append('\n');
+        }
+        offsets[LINES] = text.length();
+        buffer = text.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parse(Blackhole blackhole) {
+        for (int i = 0; i < LINES; i++) {
+            switch (parser) {
+                case SPLIT:
+                    blackhole.consume(splitFromString(lines[i]));
+                    break;
+                case OFFSET:
+                    blackhole.consume(CSVTaskFormatter.fromString(lines[i]));
+                    break;
+                case OFFSET_BUFFER:
+                    blackhole.consume(CSVTaskFormatter.fromString(buffer, offsets[i], offsets[i + 1]));
+                    break;
+            }
+        }
+    }
+
+    // Разбор до перехода на смещения
+    private static Task splitFromString(String value) {
+        String[] parts = value.split(",");
+
+        int id = Integer.parseInt(parts[0]);
+        TaskType type = TaskType.valueOf(parts[1]);
+        String name = parts[2];
+        Status status = Status.valueOf(parts[3]);
+        String description = parts[4];
+
+        Task task;
+
+        switch (type) {
+            case TASK:
+                task = new Task(name, description);
+                break;
+            case EPIC:
+                task = new Epic(name, description);
+                break;
+            case SUBTASK:
+                int epicId = Integer.parseInt(parts[5]);
+                task = new Subtask(name, description, status, epicId);
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+        }
+
+        task.setId(id);
+        task.setStatus(status);
+
+        return task;
+    }
+}
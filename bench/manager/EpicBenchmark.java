@@ -0,0 +1,103 @@
+package manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Операции с подзадачами одного эпика в зависимости от числа его подзадач
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EpicBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    int fanOut;
+
+    private InMemoryTaskManager manager;
+    private Epic epic;
+    private Subtask[] subtasks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fillEpic() {
+        manager = new InMemoryTaskManager();
+        epic = new Epic("Эпик", "Описание эпика");
+        manager.addEpic(epic);
+        subtasks = new Subtask[fanOut];
+        for (int i = 0; i < fanOut; i++) {
+            Subtask subtask = new Subtask("Подзадача " + i, "Описание", i % 2 == 0 ? Status.NEW : Status.DONE,
+                    epic.getId());
+            manager.addSubtask(subtask);
+            subtasks[i] = subtask;
+        }
+        BenchmarkData.shuffle(subtasks);
+    }
+
+    // Статус эпика обновляется на разницу счетчиков
+    @Benchmark
+    public void updateSubtaskStatus() {
+        Subtask subtask = next();
+        subtask.setStatus(subtask.getStatus() == Status.DONE ? Status.NEW : Status.DONE);
+        manager.updateSubtask(subtask);
+    }
+
+    // Полный пересчет, как после загрузки из файла
+    @Benchmark
+    public Status updateEpicStatus() {
+        manager.updateEpicStatus(epic);
+        return epic.getStatus();
+    }
+
+    @Benchmark
+    public void addAndDeleteSubtask() {
+        Subtask subtask = new Subtask("Новая подзадача", "Описание", Status.DONE, epic.getId());
+        manager.addSubtask(subtask);
+        manager.deleteSubtaskById(subtask.getId());
+    }
+
+    // Наполнение эпика с нуля: каждое добавление публикует в снимок доски новую версию эпика,
+    // время должно расти линейно по fanOut, а не квадратично
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public InMemoryTaskManager fillEpicFromScratch() {
+        InMemoryTaskManager fresh = new InMemoryTaskManager();
+        Epic target = new Epic("Эпик", "Описание эпика");
+        fresh.addEpic(target);
+        for (int i = 0; i < fanOut; i++) {
+            fresh.addSubtask(new Subtask("Подзадача " + i, "Описание", Status.NEW, target.getId()));
+        }
+        return fresh;
+    }
+
+    @Benchmark
+    public List<Subtask> getSubtasksByEpicId() {
+        return manager.getSubtasksByEpicId(epic.getId());
+    }
+
+    private Subtask next() {
+        Subtask subtask = subtasks[cursor];
+        if (++cursor == subtasks.length) {
+            cursor = 0;
+        }
+        return subtask;
+    }
+}
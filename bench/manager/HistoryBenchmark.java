@@ -0,0 +1,89 @@
+package manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tasks.Task;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// История просмотров заданного размера: повторные просмотры, удаление и чтение
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+
+    public enum Implementation {
+        IN_MEMORY,
+        CONCURRENT
+    }
+
+    @Param({"10", "1000", "100000"})
+    int historySize;
+
+    @Param({"IN_MEMORY", "CONCURRENT"})
+    Implementation implementation;
+
+    private HistoryManager history;
+    private Task[] viewed;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fillHistory() {
+        history = implementation == Implementation.CONCURRENT
+                ? Managers.getConcurrentHistory()
+                : Managers.getDefaultHistory();
+        viewed = new Task[historySize];
+        for (int i = 0; i < historySize; i++) {
+            Task task = new Task("Задача " + i, "Описание");
+            task.setId(i + 1);
+            history.add(task);
+            viewed[i] = task;
+        }
+        BenchmarkData.shuffle(viewed);
+    }
+
+    // Повторный просмотр переносит задачу в конец истории
+    @Benchmark
+    public void add() {
+        history.add(next());
+    }
+
+    @Benchmark
+    public void removeAndAdd() {
+        Task task = next();
+        history.remove(task.getId());
+        history.add(task);
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return history.getHistory();
+    }
+
+    @Benchmark
+    public List<Task> getRecentHistory() {
+        return history.getHistory(10);
+    }
+
+    private Task next() {
+        Task task = viewed[cursor];
+        if (++cursor == viewed.length) {
+            cursor = 0;
+        }
+        return task;
+    }
+}
@@ -0,0 +1,112 @@
+package manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+// Полная запись снимка и загрузка из файла для обоих форматов.
+// Доска: на каждые 10 записей - 4 задачи, 1 эпик и 5 его подзадач.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+    public enum Format {
+        CSV,
+        BINARY;
+
+        TaskSerializer serializer() {
+            return this == CSV ? new CSVTaskSerializer() : new BinaryTaskSerializer();
+        }
+    }
+
+    @Param({"1000", "100000", "1000000"})
+    int boardSize;
+
+    @Param({"CSV", "BINARY"})
+    Format format;
+
+    // Параллельный разбор поддерживается только для CSV, для двоичного формата значение не влияет
+    @Param({"1", "4"})
+    int loadParallelism;
+
+    private File loadFile;
+    private File saveFile;
+    private FileBackedTaskManager writer;
+    private Task changed;
+
+    @Setup(Level.Trial)
+    public void writeBoard() throws IOException {
+        loadFile = Files.createTempFile("kanban-load", ".db").toFile();
+        saveFile = Files.createTempFile("kanban-save", ".db").toFile();
+
+        // Пакетом, чтобы файл записался один раз
+        FileBackedTaskManager filler = new FileBackedTaskManager(loadFile, config());
+        filler.batch(ops -> {
+            for (int i = 0; i < boardSize; i += 10) {
+                for (int j = 0; j < 4; j++) {
+                    ops.addTask(new Task("Задача " + (i + j), "Описание задачи " + (i + j)));
+                }
+                Epic epic = new Epic("Эпик " + i, "Описание эпика " + i);
+                ops.addEpic(epic);
+                for (int j = 0; j < 5; j++) {
+                    Status status = j % 2 == 0 ? Status.DONE : Status.NEW;
+                    ops.addSubtask(new Subtask("Подзадача " + j, "Описание подзадачи", status, epic.getId()));
+                }
+            }
+        });
+        filler.close();
+
+        Files.copy(loadFile.toPath(), saveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        writer = FileBackedTaskManager.loadFromFile(saveFile, config());
+        changed = writer.getAllTasks().get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        writer.close();
+        loadFile.delete();
+        saveFile.delete();
+    }
+
+    // Без групповой записи каждое изменение переписывает снимок целиком
+    @Benchmark
+    public void saveSnapshot() {
+        changed.setStatus(changed.getStatus() == Status.DONE ? Status.NEW : Status.DONE);
+        writer.updateTask(changed);
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        return FileBackedTaskManager.loadFromFile(loadFile, config());
+    }
+
+    private PersistenceConfig config() {
+        return PersistenceConfig.snapshot()
+                .serializer(format.serializer())
+                .parallelLoad(loadParallelism);
+    }
+}
@@ -0,0 +1,91 @@
+package manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tasks.Status;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Основные операции InMemoryTaskManager на доске заданного размера.
+// Задачи выбираются в случайном порядке, чтобы не мерить только последовательный обход памяти.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class TaskManagerBenchmark {
+
+    @Param({"1000", "100000", "1000000", "5000000"})
+    int boardSize;
+
+    @Param({"INT_MAP", "HASH_MAP"})
+    TaskStorageType storage;
+
+    private InMemoryTaskManager manager;
+    private Task[] board;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void fillBoard() {
+        manager = new InMemoryTaskManager(storage);
+        board = new Task[boardSize];
+        for (int i = 0; i < boardSize; i++) {
+            Task task = new Task("Задача " + i, "Описание задачи " + i);
+            manager.addTask(task);
+            board[i] = task;
+        }
+        BenchmarkData.shuffle(board);
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return manager.getTaskById(next().getId());
+    }
+
+    @Benchmark
+    public void updateTask() {
+        Task task = next();
+        task.setStatus(task.getStatus() == Status.DONE ? Status.NEW : Status.DONE);
+        manager.updateTask(task);
+    }
+
+    // Добавление и удаление парой, чтобы размер доски не менялся между итерациями
+    @Benchmark
+    public void addAndDeleteTask() {
+        Task task = new Task("Новая задача", "Описание");
+        manager.addTask(task);
+        manager.deleteTaskById(task.getId());
+    }
+
+    @Benchmark
+    public List<Task> getTasksByStatus() {
+        return manager.getTasksByStatus(Status.DONE, TaskType.TASK);
+    }
+
+    @Benchmark
+    public BoardSnapshot snapshot() {
+        return manager.snapshot();
+    }
+
+    private Task next() {
+        Task task = board[cursor];
+        if (++cursor == board.length) {
+            cursor = 0;
+        }
+        return task;
+    }
+}
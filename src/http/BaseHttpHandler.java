@@ -0,0 +1,153 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import manager.BoardSnapshot;
+import manager.TaskManager;
+import manager.TaskOverlapException;
+import tasks.Task;
+import tasks.TaskSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Общая часть обработчиков: разбор пути и параметров, чтение тела, ответы в JSON и коды ошибок.
+// Некорректный запрос (IllegalArgumentException, в том числе ошибка разбора JSON или id) - 400,
+// пересечение по времени с другой задачей - 406, любая другая ошибка - 500.
+abstract class BaseHttpHandler implements HttpHandler {
+    private static final String CONTENT_TYPE = "application/json;charset=utf-8";
+
+    protected final TaskManager manager;
+
+    // Тело ответа, записываемое в JsonWriter
+    protected interface JsonBody {
+        void writeTo(JsonWriter json) throws IOException;
+    }
+
+    protected BaseHttpHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            // "/tasks/1" -> ["", "tasks", "1"]
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            handle(exchange, exchange.getRequestMethod(), path);
+        } catch (RuntimeException e) {
+            // Заголовки потокового ответа уже отправлены и код не изменить: обмен не закрывается,
+            // сервер обрывает соединение, и клиент видит незавершенный ответ вместо обрезанного списка
+            if (exchange.getResponseCode() != -1) {
+                throw e;
+            }
+            if (e instanceof IllegalArgumentException) {
+                sendError(exchange, 400, e.getMessage());
+            } else if (e instanceof TaskOverlapException) {
+                sendError(exchange, 406, e.getMessage());
+            } else {
+                sendError(exchange, 500, "Внутренняя ошибка сервера: " + e.getMessage());
+            }
+        }
+        exchange.close();
+    }
+
+    protected abstract void handle(HttpExchange exchange, String method, String[] path) throws IOException;
+
+    // Небольшой ответ целиком собирается в памяти и отправляется с Content-Length
+    protected void sendJson(HttpExchange exchange, int code, JsonBody body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        JsonWriter json = new JsonWriter(bytes);
+        body.writeTo(json);
+        json.close();
+
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(code, bytes.size());
+        bytes.writeTo(exchange.getResponseBody());
+        exchange.getResponseBody().close();
+    }
+
+    // Списки пишутся в ответ по мере обхода с chunked-кодированием: память не зависит от размера списка,
+    // а первые байты уходят клиенту, не дожидаясь конца обхода.
+    // Поток закрывается только после успешной записи, иначе завершающий блок выдал бы обрезанный ответ за полный
+    protected void sendStream(HttpExchange exchange, int code, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(code, 0);
+        JsonWriter json = new JsonWriter(exchange.getResponseBody());
+        body.writeTo(json);
+        json.close();
+    }
+
+    protected void sendNotFound(HttpExchange exchange, String message) throws IOException {
+        sendError(exchange, 404, message);
+    }
+
+    protected void sendMethodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendError(exchange, 405, "Метод не поддерживается: " + exchange.getRequestMethod());
+    }
+
+    protected void sendError(HttpExchange exchange, int code, String message) throws IOException {
+        sendJson(exchange, code, json -> json.beginObject().name("error").value(message).endObject());
+    }
+
+    protected static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Параметры запроса вида a=1&b=2; значения - числа и слова, поэтому без URL-декодирования
+    protected static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> result = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return result;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator < 0) {
+                result.put(pair, "");
+            } else {
+                result.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        return result;
+    }
+
+    // Снимки задач из доски в порядке списка; задачи, которых в доске уже нет, пропускаются.
+    // Поля живых задач могут меняться другими потоками, поэтому из списка берутся только id
+    protected static List<TaskSnapshot> published(BoardSnapshot board, List<Task> tasks) {
+        List<TaskSnapshot> result = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            TaskSnapshot snapshot;
+            switch (task.getType()) {
+                case EPIC:
+                    snapshot = board.getEpic(task.getId());
+                    break;
+                case SUBTASK:
+                    snapshot = board.getSubtask(task.getId());
+                    break;
+                default:
+                    snapshot = board.getTask(task.getId());
+            }
+            if (snapshot != null) {
+                result.add(snapshot);
+            }
+        }
+        return result;
+    }
+
+    protected static int parseId(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный id: " + segment);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import manager.BoardSnapshot;
+import manager.TaskManager;
+import tasks.TaskType;
+
+import java.io.IOException;
+
+// /epics - как TasksHandler, плюс GET /epics/{id}/subtasks - подзадачи эпика
+class EpicsHandler extends TasksHandler {
+
+    EpicsHandler(TaskManager manager) {
+        super(manager, TaskType.EPIC);
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length != 4 || !path[3].equals("subtasks")) {
+            super.handle(exchange, method, path);
+            return;
+        }
+        if (!method.equals("GET")) {
+            sendMethodNotAllowed(exchange, "GET");
+            return;
+        }
+
+        int id = parseId(path[2]);
+        BoardSnapshot board = manager.snapshot();
+        if (board.getEpic(id) == null) {
+            sendNotFound(exchange, "Не найден эпик с id " + id);
+            return;
+        }
+        sendStream(exchange, 200, json -> TaskJson.writeArray(json, board.getSubtasksByEpicId(id).iterator()));
+    }
+}
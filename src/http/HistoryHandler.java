@@ -0,0 +1,30 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import manager.TaskManager;
+import tasks.TaskSnapshot;
+
+import java.io.IOException;
+import java.util.List;
+
+// GET /history - задачи в порядке просмотра
+class HistoryHandler extends BaseHttpHandler {
+
+    HistoryHandler(TaskManager manager) {
+        super(manager);
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length != 2) {
+            sendNotFound(exchange, "Неизвестный адрес: " + exchange.getRequestURI().getPath());
+            return;
+        }
+        if (!method.equals("GET")) {
+            sendMethodNotAllowed(exchange, "GET");
+            return;
+        }
+        List<TaskSnapshot> history = published(manager.snapshot(), manager.getHistory());
+        sendStream(exchange, 200, json -> TaskJson.writeArray(json, history.iterator()));
+    }
+}
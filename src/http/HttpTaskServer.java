@@ -0,0 +1,99 @@
+package http;
+
+import com.sun.net.httpserver.HttpServer;
+import manager.Managers;
+import manager.TaskManager;
+import tasks.TaskType;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// HTTP API трекера: /tasks, /subtasks, /epics, /history, /prioritized поверх TaskManager.
+// Запросы обрабатываются параллельно, поэтому менеджер должен быть потокобезопасным
+// (по умолчанию - ConcurrentTaskManager). Обработчики работают в виртуальных потоках, если их
+// поддерживает среда выполнения (JDK 21+), иначе - в пуле потоков: обработчик блокируется только
+// на время запроса, ожидающие keep-alive соединения потоков не занимают.
+public class HttpTaskServer {
+    public static final int PORT = 8080;
+    // Очередь входящих соединений: тысячи клиентов подключаются почти одновременно
+    private static final int BACKLOG = 4096;
+
+    // Встроенный сервер JDK по умолчанию закрывает keep-alive соединения сверх 200 простаивающих.
+    // Настройка читается один раз, при создании первого HttpServer в процессе; заданное явно значение сохраняется
+    static {
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", "16384");
+        }
+    }
+
+    private final TaskManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public HttpTaskServer() throws IOException {
+        this(Managers.getConcurrent());
+    }
+
+    public HttpTaskServer(TaskManager manager) throws IOException {
+        this(manager, PORT);
+    }
+
+    // Порт 0 - любой свободный, фактический возвращает getPort()
+    public HttpTaskServer(TaskManager manager, int port) throws IOException {
+        this.manager = manager;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = newHandlerExecutor();
+        server.setExecutor(executor);
+        server.createContext("/tasks", new TasksHandler(manager, TaskType.TASK));
+        server.createContext("/subtasks", new TasksHandler(manager, TaskType.SUBTASK));
+        server.createContext("/epics", new EpicsHandler(manager));
+        server.createContext("/history", new HistoryHandler(manager));
+        server.createContext("/prioritized", new PrioritizedHandler(manager));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Дожидается завершения начатых запросов не дольше delaySeconds
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void stop() {
+        stop(0);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public TaskManager getManager() {
+        return manager;
+    }
+
+    // Виртуальный поток на каждый запрос (JDK 21+) или пул платформенных потоков.
+    // Проверка через отражение позволяет собирать проект и на более старых JDK
+    static ExecutorService newHandlerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        HttpTaskServer server = new HttpTaskServer();
+        server.start();
+        System.out.println("HTTP-сервер запущен на порту " + server.getPort());
+    }
+}
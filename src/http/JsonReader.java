@@ -0,0 +1,235 @@
+package http;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Разбор JSON тела запроса: объект - LinkedHashMap, массив - ArrayList, число - Long или Double,
+// строка, Boolean и null. Ошибки синтаксиса - IllegalArgumentException с позицией ошибки.
+// Разбор рекурсивный, поэтому вложенность ограничена MAX_DEPTH: глубже - тоже IllegalArgumentException,
+// а не StackOverflowError на теле вида [[[[...
+class JsonReader {
+    static final int MAX_DEPTH = 64;
+
+    private final String text;
+    private int position;
+    // Число открытых объектов и массивов
+    private int depth;
+
+    private JsonReader(String text) {
+        this.text = text;
+    }
+
+    static Object parse(String text) {
+        JsonReader reader = new JsonReader(text);
+        Object value = reader.readValue();
+        reader.skipWhitespace();
+        if (reader.position != text.length()) {
+            throw reader.error("Лишние символы после JSON");
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parseObject(String text) {
+        Object value = parse(text);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Ожидался JSON-объект");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        if (position == text.length()) {
+            throw error("Неожиданный конец JSON");
+        }
+
+        char c = text.charAt(position);
+        switch (c) {
+            case '{':
+                enter();
+                Map<String, Object> object = readObject();
+                depth--;
+                return object;
+            case '[':
+                enter();
+                List<Object> array = readArray();
+                depth--;
+                return array;
+            case '"':
+                return readString();
+            case 't':
+                expect("true");
+                return Boolean.TRUE;
+            case 'f':
+                expect("false");
+                return Boolean.FALSE;
+            case 'n':
+                expect("null");
+                return null;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber();
+                }
+                throw error("Неожиданный символ '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (consume('}')) {
+            return result;
+        }
+
+        while (true) {
+            skipWhitespace();
+            if (position == text.length() || text.charAt(position) != '"') {
+                throw error("Ожидалось имя поля");
+            }
+            String key = readString();
+            skipWhitespace();
+            if (!consume(':')) {
+                throw error("Ожидалось ':'");
+            }
+            result.put(key, readValue());
+            skipWhitespace();
+            if (consume('}')) {
+                return result;
+            }
+            if (!consume(',')) {
+                throw error("Ожидалось ',' или '}'");
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> result = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (consume(']')) {
+            return result;
+        }
+
+        while (true) {
+            result.add(readValue());
+            skipWhitespace();
+            if (consume(']')) {
+                return result;
+            }
+            if (!consume(',')) {
+                throw error("Ожидалось ',' или ']'");
+            }
+        }
+    }
+
+    private String readString() {
+        StringBuilder result = new StringBuilder();
+        position++;
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return result.toString();
+            }
+            if (c != '\\') {
+                result.append(c);
+                continue;
+            }
+            if (position == text.length()) {
+                break;
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    result.append(escaped);
+                    break;
+                case 'b':
+                    result.append('\b');
+                    break;
+                case 'f':
+                    result.append('\f');
+                    break;
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("Неполная escape-последовательность");
+                    }
+                    try {
+                        result.append((char) Integer.parseInt(text, position, position + 4, 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Некорректная escape-последовательность");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    throw error("Некорректная escape-последовательность '\\" + escaped + "'");
+            }
+        }
+        throw error("Незакрытая строка");
+    }
+
+    private Object readNumber() {
+        int start = position;
+        boolean fraction = false;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                fraction = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            position++;
+        }
+
+        String number = text.substring(start, position);
+        try {
+            return fraction ? (Object) Double.parseDouble(number) : (Object) Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error("Некорректное число '" + number + "'");
+        }
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("Вложенность больше " + MAX_DEPTH);
+        }
+    }
+
+    private void expect(String literal) {
+        if (!text.startsWith(literal, position)) {
+            throw error("Ожидалось " + literal);
+        }
+        position += literal.length();
+    }
+
+    private boolean consume(char c) {
+        if (position < text.length() && text.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Ошибка разбора JSON в позиции " + position + ": " + message);
+    }
+}
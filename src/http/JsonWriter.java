@@ -0,0 +1,220 @@
+package http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Потоковая запись JSON сразу в OutputStream: строки кодируются в UTF-8 посимвольно в собственный буфер,
+// без промежуточных String и byte[], поток получает данные блоками по размеру буфера.
+// Память не зависит от объема ответа, первый блок уходит клиенту, как только буфер заполнится.
+// Запятые между элементами ставятся автоматически; вложенность - не больше 63 уровней.
+class JsonWriter implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    // Бит уровня вложенности: на уровне уже есть элемент и перед следующим нужна запятая
+    private long hasElements;
+    private int depth;
+    // После имени поля значение пишется без запятой
+    private boolean afterName;
+
+    JsonWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    // Имена полей - латиница без спецсимволов, поэтому пишутся без экранирования
+    JsonWriter name(String name) throws IOException {
+        separate();
+        write('"');
+        for (int i = 0; i < name.length(); i++) {
+            write((byte) name.charAt(i));
+        }
+        write('"');
+        write(':');
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+
+        separate();
+        write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeAscii(c);
+            } else if (c < 0x800) {
+                write((byte) (0xC0 | (c >> 6)));
+                write((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write((byte) (0xF0 | (codePoint >> 18)));
+                write((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                write((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                write((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Непарный суррогат не представим в UTF-8
+                write('?');
+            } else {
+                write((byte) (0xE0 | (c >> 12)));
+                write((byte) (0x80 | ((c >> 6) & 0x3F)));
+                write((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        write('"');
+        return this;
+    }
+
+    JsonWriter value(long value) throws IOException {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            writeRaw(Long.toString(value));
+            return this;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        // Цифры пишутся прямо в буфер в обратном порядке и затем разворачиваются
+        if (buffer.length - position < 19) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+        return this;
+    }
+
+    JsonWriter nullValue() throws IOException {
+        separate();
+        writeRaw("null");
+        return this;
+    }
+
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    // Дописывает буфер и закрывает поток: для ответа с chunked-кодированием это завершающий пустой блок
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write(buffer, 0, position);
+            position = 0;
+        } finally {
+            out.close();
+        }
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        if (depth == Long.SIZE - 1) {
+            throw new IllegalStateException("Слишком глубокая вложенность JSON");
+        }
+        separate();
+        write((byte) bracket);
+        depth++;
+        hasElements &= ~(1L << depth);
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("Нет открытого объекта или массива");
+        }
+        depth--;
+        write((byte) bracket);
+        return this;
+    }
+
+    // Запятая перед очередным элементом уровня; значение после имени поля идет без нее
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        long bit = 1L << depth;
+        if ((hasElements & bit) != 0) {
+            write(',');
+        }
+        hasElements |= bit;
+    }
+
+    private void writeAscii(char c) throws IOException {
+        switch (c) {
+            case '"':
+                writeRaw("\\\"");
+                break;
+            case '\\':
+                writeRaw("\\\\");
+                break;
+            case '\n':
+                writeRaw("\\n");
+                break;
+            case '\r':
+                writeRaw("\\r");
+                break;
+            case '\t':
+                writeRaw("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    writeRaw("\\u00");
+                    write(HEX[c >> 4]);
+                    write(HEX[c & 0xF]);
+                } else {
+                    write((byte) c);
+                }
+        }
+    }
+
+    private void writeRaw(String ascii) throws IOException {
+        for (int i = 0; i < ascii.length(); i++) {
+            write((byte) ascii.charAt(i));
+        }
+    }
+
+    private void write(char c) throws IOException {
+        write((byte) c);
+    }
+
+    private void write(byte b) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = b;
+    }
+}
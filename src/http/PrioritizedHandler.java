@@ -0,0 +1,30 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import manager.TaskManager;
+import tasks.TaskSnapshot;
+
+import java.io.IOException;
+import java.util.List;
+
+// GET /prioritized - задачи и подзадачи со временем начала, по возрастанию начала
+class PrioritizedHandler extends BaseHttpHandler {
+
+    PrioritizedHandler(TaskManager manager) {
+        super(manager);
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length != 2) {
+            sendNotFound(exchange, "Неизвестный адрес: " + exchange.getRequestURI().getPath());
+            return;
+        }
+        if (!method.equals("GET")) {
+            sendMethodNotAllowed(exchange, "GET");
+            return;
+        }
+        List<TaskSnapshot> prioritized = published(manager.snapshot(), manager.getPrioritizedTasks());
+        sendStream(exchange, 200, json -> TaskJson.writeArray(json, prioritized.iterator()));
+    }
+}
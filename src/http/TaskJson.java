@@ -0,0 +1,158 @@
+package http;
+
+import tasks.Epic;
+import tasks.EpicSnapshot;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.SubtaskSnapshot;
+import tasks.Task;
+import tasks.TaskSnapshot;
+import tasks.TaskType;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.Map;
+
+// Преобразование задач в JSON и обратно. Ответы пишутся из неизменяемых снимков задач потоково, через JsonWriter.
+// Поля: id, type, name, description, status, startTime, duration, endTime; у подзадачи - epicId,
+// у эпика - subtaskIds. Время - строки ISO-8601 (2024-01-31T09:30, PT1H30M) или null.
+// Во входящем JSON id необязателен (0 или отсутствует - новая задача), status по умолчанию NEW,
+// type, subtaskIds и endTime игнорируются: тип задается адресом запроса, подзадачи эпика - менеджером,
+// конец вычисляется; время эпика тоже вычисляется по подзадачам и не принимается.
+class TaskJson {
+
+    static void write(JsonWriter json, TaskSnapshot task) throws IOException {
+        json.beginObject()
+                .name("id").value(task.getId())
+                .name("type").value(task.getType().name())
+                .name("name").value(task.getName())
+                .name("description").value(task.getDescription())
+                .name("status").value(task.getStatus().name())
+                .name("startTime").value(toString(task.getStartTime()))
+                .name("duration").value(toString(task.getDuration()))
+                .name("endTime").value(toString(task.getEndTime()));
+        switch (task.getType()) {
+            case SUBTASK:
+                json.name("epicId").value(((SubtaskSnapshot) task).getEpicId());
+                break;
+            case EPIC:
+                json.name("subtaskIds").beginArray();
+                for (int id : ((EpicSnapshot) task).getSubtaskIds()) {
+                    json.value(id);
+                }
+                json.endArray();
+                break;
+            default:
+                break;
+        }
+        json.endObject();
+    }
+
+    static void writeArray(JsonWriter json, Iterator<? extends TaskSnapshot> tasks) throws IOException {
+        json.beginArray();
+        while (tasks.hasNext()) {
+            write(json, tasks.next());
+        }
+        json.endArray();
+    }
+
+    // Страница по курсору: {"items": [...], "nextCursor": id первой задачи следующей страницы или null}
+    static void writePage(JsonWriter json, Iterator<? extends TaskSnapshot> tasks, int limit) throws IOException {
+        json.beginObject().name("items").beginArray();
+        for (int i = 0; i < limit && tasks.hasNext(); i++) {
+            write(json, tasks.next());
+        }
+        json.endArray().name("nextCursor");
+        if (tasks.hasNext()) {
+            json.value(tasks.next().getId());
+        } else {
+            json.nullValue();
+        }
+        json.endObject();
+    }
+
+    static Task fromJson(String body, TaskType type) {
+        Map<String, Object> json = JsonReader.parseObject(body);
+        String name = getString(json, "name");
+        String description = getString(json, "description");
+        String status = getString(json, "status");
+
+        Task task;
+        switch (type) {
+            case TASK:
+                task = new Task(name, description);
+                break;
+            case EPIC:
+                task = new Epic(name, description);
+                break;
+            case SUBTASK:
+                if (!json.containsKey("epicId")) {
+                    throw new IllegalArgumentException("У подзадачи должен быть указан epicId");
+                }
+                task = new Subtask(name, description, Status.NEW, getInt(json, "epicId"));
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+        }
+
+        task.setId(getInt(json, "id"));
+        if (type != TaskType.EPIC) {
+            task.setStartTime(getDateTime(json, "startTime"));
+            task.setDuration(getDuration(json, "duration"));
+        }
+        // Статус эпика вычисляется по подзадачам
+        if (status != null && type != TaskType.EPIC) {
+            try {
+                task.setStatus(Status.valueOf(status));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неизвестный статус: " + status);
+            }
+        }
+        return task;
+    }
+
+    private static String getString(Map<String, Object> json, String field) {
+        Object value = json.get(field);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть строкой");
+        }
+        return (String) value;
+    }
+
+    private static LocalDateTime getDateTime(Map<String, Object> json, String field) {
+        String value = getString(json, field);
+        try {
+            return value == null ? null : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректное время в поле " + field + ": " + value);
+        }
+    }
+
+    private static Duration getDuration(Map<String, Object> json, String field) {
+        String value = getString(json, field);
+        try {
+            return value == null ? null : Duration.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректная продолжительность в поле " + field + ": " + value);
+        }
+    }
+
+    private static String toString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    // Отсутствующее поле - 0
+    private static int getInt(Map<String, Object> json, String field) {
+        Object value = json.get(field);
+        if (value == null) {
+            return 0;
+        }
+        if (!(value instanceof Long) || (Long) value < Integer.MIN_VALUE || (Long) value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть целым числом");
+        }
+        return ((Long) value).intValue();
+    }
+}
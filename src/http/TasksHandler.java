@@ -0,0 +1,221 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import manager.BoardSnapshot;
+import manager.TaskManager;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.SubtaskSnapshot;
+import tasks.Task;
+import tasks.TaskSnapshot;
+import tasks.TaskType;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+// /tasks и /subtasks (а через EpicsHandler и /epics):
+// GET /{type} - все задачи типа, GET /{type}/{id} - задача (попадает в историю),
+// POST /{type} - создание (без id) или обновление (с id), DELETE /{type}/{id} - удаление.
+// GET /{type}?limit=N&cursor=C - страница из не более чем N задач с id не меньше C, по возрастанию id;
+// nextCursor из ответа - курсор следующей страницы. Курсор - это id, поэтому добавление и удаление
+// задач между запросами не сдвигает страницы и не дает пропусков или повторов.
+// Списки пишутся потоково из согласованного снимка доски по возрастанию id.
+// Существование задачи проверяется по снимку, чтобы проверка не попадала в историю просмотров.
+// Ответ с задачей тоже строится из опубликованного снимка: хранимый объект могут менять другие потоки.
+class TasksHandler extends BaseHttpHandler {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 10_000;
+
+    private final TaskType type;
+
+    TasksHandler(TaskManager manager, TaskType type) {
+        super(manager);
+        this.type = type;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length > 3) {
+            sendNotFound(exchange, "Неизвестный адрес: " + exchange.getRequestURI().getPath());
+            return;
+        }
+
+        switch (method) {
+            case "GET":
+                if (path.length == 2) {
+                    handleList(exchange);
+                } else {
+                    handleGet(exchange, parseId(path[2]));
+                }
+                break;
+            case "POST":
+                if (path.length != 2) {
+                    throw new IllegalArgumentException("id передается в теле запроса");
+                }
+                handlePost(exchange, TaskJson.fromJson(readBody(exchange), type));
+                break;
+            case "DELETE":
+                if (path.length != 3) {
+                    throw new IllegalArgumentException("Не указан id удаляемой задачи");
+                }
+                handleDelete(exchange, parseId(path[2]));
+                break;
+            default:
+                sendMethodNotAllowed(exchange, "GET, POST, DELETE");
+        }
+    }
+
+    private void handleList(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        BoardSnapshot board = manager.snapshot();
+        if (!query.containsKey("limit") && !query.containsKey("cursor")) {
+            sendStream(exchange, 200, json -> TaskJson.writeArray(json, iterate(board, 0)));
+            return;
+        }
+
+        int limit = query.containsKey("limit") ? parseParameter(query, "limit") : DEFAULT_PAGE_SIZE;
+        int cursor = query.containsKey("cursor") ? parseParameter(query, "cursor") : 0;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        sendStream(exchange, 200, json -> TaskJson.writePage(json, iterate(board, cursor), limit));
+    }
+
+    private void handleGet(HttpExchange exchange, int id) throws IOException {
+        // Просмотр попадает в историю, а ответ строится из снимка
+        if (getById(id) == null) {
+            sendNotFound(exchange, notFound(id));
+            return;
+        }
+        sendTask(exchange, 200, id);
+    }
+
+    private void handlePost(HttpExchange exchange, Task task) throws IOException {
+        if (task.getId() == 0) {
+            add(task);
+            // Подзадача без существующего эпика менеджером не добавляется и id не получает
+            if (task.getId() == 0) {
+                sendNotFound(exchange, "Эпик не найден: " + ((Subtask) task).getEpicId());
+                return;
+            }
+            sendTask(exchange, 201, task.getId());
+            return;
+        }
+
+        TaskSnapshot current = find(task.getId());
+        if (current == null) {
+            sendNotFound(exchange, notFound(task.getId()));
+            return;
+        }
+        if (type == TaskType.SUBTASK && ((SubtaskSnapshot) current).getEpicId() != ((Subtask) task).getEpicId()) {
+            throw new IllegalArgumentException("Подзадачу нельзя перенести в другой эпик");
+        }
+        update(task);
+        sendTask(exchange, 201, task.getId());
+    }
+
+    private void handleDelete(HttpExchange exchange, int id) throws IOException {
+        if (find(id) == null) {
+            sendNotFound(exchange, notFound(id));
+            return;
+        }
+        delete(id);
+        sendJson(exchange, 200, json -> json.beginObject().name("id").value(id).endObject());
+    }
+
+    // Задачу могли удалить сразу после изменения - тогда 404
+    private void sendTask(HttpExchange exchange, int code, int id) throws IOException {
+        TaskSnapshot snapshot = find(id);
+        if (snapshot == null) {
+            sendNotFound(exchange, notFound(id));
+            return;
+        }
+        sendJson(exchange, code, json -> TaskJson.write(json, snapshot));
+    }
+
+    private static int parseParameter(Map<String, String> query, String name) {
+        try {
+            return Integer.parseInt(query.get(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное значение " + name + ": " + query.get(name));
+        }
+    }
+
+    private TaskSnapshot find(int id) {
+        TaskSnapshot snapshot = manager.getSnapshot(id);
+        return snapshot != null && snapshot.getType() == type ? snapshot : null;
+    }
+
+    private String notFound(int id) {
+        return "Не найдена задача типа " + type + " с id " + id;
+    }
+
+    private Iterator<? extends TaskSnapshot> iterate(BoardSnapshot board, int fromId) {
+        switch (type) {
+            case TASK:
+                return board.getTasksFrom(fromId);
+            case EPIC:
+                return board.getEpicsFrom(fromId);
+            case SUBTASK:
+                return board.getSubtasksFrom(fromId);
+            default:
+                throw new IllegalStateException("Неизвестный тип задачи: " + type);
+        }
+    }
+
+    private Task getById(int id) {
+        switch (type) {
+            case TASK:
+                return manager.getTaskById(id);
+            case EPIC:
+                return manager.getEpicById(id);
+            case SUBTASK:
+                return manager.getSubtaskById(id);
+            default:
+                throw new IllegalStateException("Неизвестный тип задачи: " + type);
+        }
+    }
+
+    private void add(Task task) {
+        switch (type) {
+            case TASK:
+                manager.addTask(task);
+                break;
+            case EPIC:
+                manager.addEpic((Epic) task);
+                break;
+            case SUBTASK:
+                manager.addSubtask((Subtask) task);
+                break;
+        }
+    }
+
+    private void update(Task task) {
+        switch (type) {
+            case TASK:
+                manager.updateTask(task);
+                break;
+            case EPIC:
+                manager.updateEpic((Epic) task);
+                break;
+            case SUBTASK:
+                manager.updateSubtask((Subtask) task);
+                break;
+        }
+    }
+
+    private void delete(int id) {
+        switch (type) {
+            case TASK:
+                manager.deleteTaskById(id);
+                break;
+            case EPIC:
+                manager.deleteEpicById(id);
+                break;
+            case SUBTASK:
+                manager.deleteSubtaskById(id);
+                break;
+        }
+    }
+}
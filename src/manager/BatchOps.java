@@ -0,0 +1,26 @@
+package manager;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+// Изменяющие операции менеджера, доступные внутри TaskManager.batch
+public interface BatchOps {
+    void addTask(Task task);
+
+    void addEpic(Epic epic);
+
+    void addSubtask(Subtask subtask);
+
+    void updateTask(Task task);
+
+    void updateEpic(Epic epic);
+
+    void updateSubtask(Subtask subtask);
+
+    void deleteTaskById(int id);
+
+    void deleteEpicById(int id);
+
+    void deleteSubtaskById(int id);
+}
@@ -0,0 +1,120 @@
+package manager;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+// Пакет изменений для TaskManager.batch, собранный без применения. id новым задачам выдаются сразу,
+// чтобы на них можно было ссылаться внутри пакета. Пересечения по времени проверяются при добавлении
+// операции против состояния, которое сложится к этому моменту пакета: конфликт прерывает operations,
+// и пакет не применяется вовсе
+class BatchPlan implements BatchOps {
+    private final TaskManager target;
+    private final IntSupplier ids;
+    private final TimeIndex schedule;
+    private final IntFunction<Epic> epics;
+    private final List<Runnable> queue = new ArrayList<>();
+    // Расписание, складывающееся в пакете: новые версии задач и id задач,
+    // чьи прежние версии в schedule уже не действуют (изменены или удалены)
+    private final TimeIndex pending = new TimeIndex();
+    private final Set<Integer> replaced = new HashSet<>();
+
+    // schedule и epics не должны меняться, пока пакет собирается
+    BatchPlan(TaskManager target, IntSupplier ids, TimeIndex schedule, IntFunction<Epic> epics) {
+        this.target = target;
+        this.ids = ids;
+        this.schedule = schedule;
+        this.epics = epics;
+    }
+
+    // Операции применяются по порядку обычными методами target
+    void apply() {
+        for (Runnable operation : queue) {
+            operation.run();
+        }
+    }
+
+    @Override
+    public void addTask(Task task) {
+        task.setId(ids.getAsInt());
+        schedule(task);
+        queue.add(() -> target.addTask(task));
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        epic.setId(ids.getAsInt());
+        queue.add(() -> target.addEpic(epic));
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        subtask.setId(ids.getAsInt());
+        schedule(subtask);
+        queue.add(() -> target.addSubtask(subtask));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        schedule(task);
+        queue.add(() -> target.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        queue.add(() -> target.updateEpic(epic));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        schedule(subtask);
+        queue.add(() -> target.updateSubtask(subtask));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        unschedule(id);
+        queue.add(() -> target.deleteTaskById(id));
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        // Подзадачи, добавленные в этом же пакете, остаются в pending: проверка выходит строже, чем нужно
+        Epic epic = epics.apply(id);
+        if (epic != null) {
+            for (int subId : epic.getSubtaskIds()) {
+                unschedule(subId);
+            }
+        }
+        queue.add(() -> target.deleteEpicById(id));
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        unschedule(id);
+        queue.add(() -> target.deleteSubtaskById(id));
+    }
+
+    private void schedule(Task task) {
+        replaced.add(task.getId());
+        Task conflict = pending.tryPut(task);
+        if (conflict == null && task.getStartTime() != null) {
+            conflict = schedule.findOverlap(task.getStartTime(), task.getEndTime(), replaced);
+        }
+        if (conflict != null) {
+            throw new TaskOverlapException(task, conflict);
+        }
+    }
+
+    private void unschedule(int id) {
+        replaced.add(id);
+        pending.remove(id);
+    }
+}
@@ -0,0 +1,248 @@
+package manager;
+
+import tasks.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// Двоичный формат: заголовок "KNBN" + версия + следующий id менеджера varint (с версии 3), затем записи
+// [тип][id varint][статус][название][описание][id эпика varint - только у подзадач]
+// [время начала][продолжительность - кроме эпиков, с версии 2].
+// Тип и статус - порядковые номера констант, строки - длина varint (0 - null, иначе длина + 1) и байты UTF-8.
+// Время начала и продолжительность - признак 0 (null) или 1, затем секунды zigzag-varlong и наносекунды varint;
+// время начала - секунды от эпохи без учета часового пояса. Снимки версии 1 читаются как задачи без времени.
+public class BinaryTaskSerializer implements TaskSerializer {
+    static final int VERSION = 3;
+
+    private static final byte[] MAGIC = {'K', 'N', 'B', 'N'};
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    @Override
+    public void writeHeader(OutputStream out, int nextId) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeVarInt(nextId, out);
+    }
+
+    @Override
+    public void write(Task task, OutputStream out) throws IOException {
+        out.write(task.getType().ordinal());
+        writeVarInt(task.getId(), out);
+        out.write(task.getStatus().ordinal());
+        writeString(task.getName(), out);
+        writeString(task.getDescription(), out);
+
+        if (task.getType() == TaskType.SUBTASK) {
+            writeVarInt(((Subtask) task).getEpicId(), out);
+        }
+        if (task.getType() != TaskType.EPIC) {
+            writeStartTime(task.getStartTime(), out);
+            writeDuration(task.getDuration(), out);
+        }
+    }
+
+    @Override
+    public void read(InputStream in, IntConsumer nextId, Consumer<Task> consumer) throws IOException {
+        byte[] header = in.readNBytes(MAGIC.length + 1);
+        // Пустой файл - пустой снимок, как и в текстовом формате
+        if (header.length == 0) {
+            nextId.accept(0);
+            return;
+        }
+        if (header.length <= MAGIC.length || !Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IOException("Файл не является двоичным снимком задач");
+        }
+        int version = header[MAGIC.length];
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Неподдерживаемая версия двоичного снимка: " + version);
+        }
+        boolean hasTime = version >= 2;
+
+        RecordReader reader = new RecordReader(in);
+        nextId.accept(version >= 3 ? reader.readVarInt() : 0);
+        int typeOrdinal;
+        while ((typeOrdinal = in.read()) >= 0) {
+            TaskType type = constant(TYPES, typeOrdinal);
+            int id = reader.readVarInt();
+            Status status = constant(STATUSES, reader.readByte());
+            String name = reader.readString();
+            String description = reader.readString();
+
+            Task task;
+            switch (type) {
+                case TASK:
+                    task = new Task(name, description);
+                    break;
+                case EPIC:
+                    task = new Epic(name, description);
+                    break;
+                case SUBTASK:
+                    task = new Subtask(name, description, status, reader.readVarInt());
+                    break;
+                default:
+                    throw new IOException("Неизвестный тип задачи: " + type);
+            }
+
+            if (hasTime && type != TaskType.EPIC) {
+                task.setStartTime(reader.readStartTime());
+                task.setDuration(reader.readDuration());
+            }
+            task.setId(id);
+            task.setStatus(status);
+            consumer.accept(task);
+        }
+    }
+
+    private static void writeVarInt(int value, OutputStream out) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeVarLong(long value, OutputStream out) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    // Знак переносится в младший бит, чтобы небольшие отрицательные значения тоже занимали мало байт
+    private static void writeSignedVarLong(long value, OutputStream out) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63), out);
+    }
+
+    private static void writeStartTime(LocalDateTime value, OutputStream out) throws IOException {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        out.write(1);
+        writeSignedVarLong(value.toEpochSecond(ZoneOffset.UTC), out);
+        writeVarInt(value.getNano(), out);
+    }
+
+    private static void writeDuration(Duration value, OutputStream out) throws IOException {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        out.write(1);
+        writeSignedVarLong(value.getSeconds(), out);
+        writeVarInt(value.getNano(), out);
+    }
+
+    private static void writeString(String value, OutputStream out) throws IOException {
+        if (value == null) {
+            writeVarInt(0, out);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1, out);
+        out.write(bytes);
+    }
+
+    private static <E extends Enum<E>> E constant(E[] constants, int ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= constants.length) {
+            throw new IOException("Некорректный код константы: " + ordinal);
+        }
+        return constants[ordinal];
+    }
+
+    // Состояние разбора одного файла: буфер строк переиспользуется между записями
+    private static class RecordReader {
+        private final InputStream in;
+        private byte[] buffer = new byte[256];
+
+        RecordReader(InputStream in) {
+            this.in = in;
+        }
+
+        int readByte() throws IOException {
+            int value = in.read();
+            if (value < 0) {
+                throw new EOFException("Неожиданный конец двоичного снимка");
+            }
+            return value;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Некорректное число в двоичном снимке");
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Некорректное число в двоичном снимке");
+        }
+
+        long readSignedVarLong() throws IOException {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        LocalDateTime readStartTime() throws IOException {
+            if (readByte() == 0) {
+                return null;
+            }
+            long seconds = readSignedVarLong();
+            try {
+                return LocalDateTime.ofEpochSecond(seconds, readVarInt(), ZoneOffset.UTC);
+            } catch (DateTimeException e) {
+                throw new IOException("Некорректное время начала в двоичном снимке", e);
+            }
+        }
+
+        Duration readDuration() throws IOException {
+            if (readByte() == 0) {
+                return null;
+            }
+            long seconds = readSignedVarLong();
+            return Duration.ofSeconds(seconds, readVarInt());
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+
+            if (length > buffer.length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            if (in.readNBytes(buffer, 0, length) != length) {
+                throw new EOFException("Неожиданный конец двоичного снимка");
+            }
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package manager;
+
+import tasks.EpicSnapshot;
+import tasks.SubtaskSnapshot;
+import tasks.Task;
+import tasks.TaskSnapshot;
+import util.PersistentIntMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+// Согласованное состояние всей доски на один момент: задачи, эпики и подзадачи одной версии.
+// Хранится в неизменяемых отображениях с общими узлами: менеджер выпускает новую версию при каждом
+// изменении за O(log n), а snapshot() отдает текущую за O(1). Чтение снимка не блокирует запись
+// и не видит изменений, сделанных после его получения.
+public final class BoardSnapshot {
+    static final BoardSnapshot EMPTY = new BoardSnapshot(
+            PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentIntMap.empty(), 0);
+
+    private final PersistentIntMap<TaskSnapshot> tasks;
+    private final PersistentIntMap<EpicSnapshot> epics;
+    private final PersistentIntMap<SubtaskSnapshot> subtasks;
+    private final long version;
+
+    private BoardSnapshot(PersistentIntMap<TaskSnapshot> tasks, PersistentIntMap<EpicSnapshot> epics,
+                          PersistentIntMap<SubtaskSnapshot> subtasks, long version) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.version = version;
+    }
+
+    // Сборка обходом коллекций: для менеджеров, которые не ведут версии
+    static BoardSnapshot of(Collection<? extends Task> tasks, Collection<? extends Task> epics,
+                            Collection<? extends Task> subtasks) {
+        BoardSnapshot board = EMPTY;
+        for (Task task : tasks) {
+            board = board.withTask(task.snapshot());
+        }
+        for (Task epic : epics) {
+            board = board.withEpic((EpicSnapshot) epic.snapshot());
+        }
+        for (Task subtask : subtasks) {
+            board = board.withSubtask((SubtaskSnapshot) subtask.snapshot());
+        }
+        return board;
+    }
+
+    // Растет с каждым изменением доски; равные версии одного менеджера - одно и то же состояние
+    public long getVersion() {
+        return version;
+    }
+
+    public TaskSnapshot getTask(int id) {
+        return tasks.get(id);
+    }
+
+    public EpicSnapshot getEpic(int id) {
+        return epics.get(id);
+    }
+
+    public SubtaskSnapshot getSubtask(int id) {
+        return subtasks.get(id);
+    }
+
+    // Коллекции только для чтения, по возрастанию id
+    public Collection<TaskSnapshot> getTasks() {
+        return tasks.values();
+    }
+
+    public Collection<EpicSnapshot> getEpics() {
+        return epics.values();
+    }
+
+    public Collection<SubtaskSnapshot> getSubtasks() {
+        return subtasks.values();
+    }
+
+    // Обход с заданного id по возрастанию: для постраничной выдачи по курсору без просмотра начала
+    public Iterator<TaskSnapshot> getTasksFrom(int fromId) {
+        return tasks.valuesFrom(fromId);
+    }
+
+    public Iterator<EpicSnapshot> getEpicsFrom(int fromId) {
+        return epics.valuesFrom(fromId);
+    }
+
+    public Iterator<SubtaskSnapshot> getSubtasksFrom(int fromId) {
+        return subtasks.valuesFrom(fromId);
+    }
+
+    public List<SubtaskSnapshot> getSubtasksByEpicId(int epicId) {
+        List<SubtaskSnapshot> result = new ArrayList<>();
+        EpicSnapshot epic = epics.get(epicId);
+        if (epic != null) {
+            for (int id : epic.getSubtaskIds()) {
+                result.add(subtasks.get(id));
+            }
+        }
+        return result;
+    }
+
+    BoardSnapshot withTask(TaskSnapshot task) {
+        return with(tasks.put(task.getId(), task), epics, subtasks);
+    }
+
+    BoardSnapshot withoutTask(int id) {
+        return with(tasks.remove(id), epics, subtasks);
+    }
+
+    BoardSnapshot withEpic(EpicSnapshot epic) {
+        return with(tasks, epics.put(epic.getId(), epic), subtasks);
+    }
+
+    BoardSnapshot withoutEpic(int id) {
+        return with(tasks, epics.remove(id), subtasks);
+    }
+
+    BoardSnapshot withSubtask(SubtaskSnapshot subtask) {
+        return with(tasks, epics, subtasks.put(subtask.getId(), subtask));
+    }
+
+    BoardSnapshot withoutSubtask(int id) {
+        return with(tasks, epics, subtasks.remove(id));
+    }
+
+    BoardSnapshot withoutTasks() {
+        return with(PersistentIntMap.empty(), epics, subtasks);
+    }
+
+    // Подзадачи не существуют без эпиков и удаляются вместе с ними
+    BoardSnapshot withoutEpics() {
+        return with(tasks, PersistentIntMap.empty(), PersistentIntMap.empty());
+    }
+
+    BoardSnapshot withoutSubtasks() {
+        return with(tasks, epics, PersistentIntMap.empty());
+    }
+
+    private BoardSnapshot with(PersistentIntMap<TaskSnapshot> tasks, PersistentIntMap<EpicSnapshot> epics,
+                               PersistentIntMap<SubtaskSnapshot> subtasks) {
+        if (tasks == this.tasks && epics == this.epics && subtasks == this.subtasks) {
+            return this;
+        }
+        return new BoardSnapshot(tasks, epics, subtasks, version + 1);
+    }
+}
@@ -0,0 +1,141 @@
+package manager;
+
+import java.io.IOException;
+import java.io.Reader;
+
+// Читает записи CSV с учетом кавычек: перевод строки внутри кавычек не завершает запись.
+// Поле в кавычках открывается только кавычкой в начале поля и закрывается кавычкой перед запятой
+// или концом строки; кавычка в середине поля без кавычек - обычный символ.
+// Если кавычки не сходятся по этим правилам (файлы до экранирования полей, где кавычки писались как есть),
+// запись читается как одна строка, а остаток возвращается для следующих записей.
+// Возвращаемая запись действительна до следующего вызова next - буфер переиспользуется.
+class CSVRecordReader {
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder record = new StringBuilder(256);
+    private int position;
+    private int limit;
+    // Прочитанное, но не вошедшее в запись при откате к чтению по строкам
+    private final StringBuilder carry = new StringBuilder();
+    private int carryPosition;
+    // false - кавычки не учитываются вовсе, каждая строка - запись
+    private boolean quotedFields = true;
+    // Последняя запись прочитана как строка, без учета кавычек
+    private boolean plainLine;
+
+    CSVRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    void setQuotedFields(boolean quotedFields) {
+        this.quotedFields = quotedFields;
+    }
+
+    boolean isPlainLine() {
+        return plainLine;
+    }
+
+    // null - конец данных
+    CharSequence next() throws IOException {
+        record.setLength(0);
+        plainLine = !quotedFields;
+        boolean quoted = false;
+        // Кавычка внутри поля в кавычках: закрывающая или первая из удвоенных, решает следующий символ
+        boolean closing = false;
+        boolean fieldStart = true;
+        boolean read = false;
+
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (quoted && !closing) {
+                    fallBack();
+                }
+                return read ? record : null;
+            }
+            read = true;
+
+            if (!plainLine) {
+                if (closing) {
+                    closing = false;
+                    if (c == '"') {
+                        record.append('"');
+                        continue;
+                    }
+                    if (c != ',' && c != '\n' && c != '\r') {
+                        record.append((char) c);
+                        if (fallBack()) {
+                            return record;
+                        }
+                        continue;
+                    }
+                    quoted = false;
+                } else if (quoted) {
+                    closing = c == '"';
+                    record.append((char) c);
+                    continue;
+                } else if (c == '"' && fieldStart) {
+                    quoted = true;
+                    fieldStart = false;
+                    record.append('"');
+                    continue;
+                }
+                fieldStart = c == ',';
+            }
+
+            if (c == '\n') {
+                trimCarriageReturn();
+                return record;
+            }
+            record.append((char) c);
+        }
+    }
+
+    static boolean isBlank(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (carryPosition < carry.length()) {
+            return carry.charAt(carryPosition++);
+        }
+        if (position == limit) {
+            limit = reader.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    // Запись заканчивается на первом переводе строки, остальное прочитанное возвращается в поток.
+    // false - перевода строки еще не было, запись дочитывается до него без учета кавычек
+    private boolean fallBack() {
+        plainLine = true;
+        int newline = record.indexOf("\n");
+        if (newline < 0) {
+            return false;
+        }
+
+        carry.delete(0, carryPosition);
+        carry.insert(0, record, newline + 1, record.length());
+        carryPosition = 0;
+        record.setLength(newline);
+        trimCarriageReturn();
+        return true;
+    }
+
+    private void trimCarriageReturn() {
+        int length = record.length();
+        if (length > 0 && record.charAt(length - 1) == '\r') {
+            record.setLength(length - 1);
+        }
+    }
+}
@@ -2,46 +2,101 @@ package manager;
 
 import tasks.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+// Формат строк по RFC 4180: поля с запятой, кавычкой или переводом строки берутся в кавычки,
+// кавычки внутри удваиваются.
+// Время начала и продолжительность - в ISO-8601 (2024-01-31T09:30, PT1H30M), пустое поле - не задано.
+// У эпика время не хранится: оно вычисляется по подзадачам. Строки прежнего формата, без этих полей,
+// читаются как задачи без времени.
+// Снимки до экранирования полей писали кавычки как есть, одна задача на строку; такие снимки
+// отличаются по заголовку без version и читаются без учета кавычек
 public class CSVTaskFormatter {
 
+    // 2 - поля по RFC 4180
+    static final int FORMAT_VERSION = 2;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
     public static String toString(Task task) {
         String epicId = "";
+        String startTime = "";
+        String duration = "";
 
         if (task.getType() == TaskType.SUBTASK) {
             epicId = String.valueOf(((Subtask) task).getEpicId());
         }
+        if (task.getType() != TaskType.EPIC) {
+            if (task.getStartTime() != null) {
+                startTime = task.getStartTime().toString();
+            }
+            if (task.getDuration() != null) {
+                duration = task.getDuration().toString();
+            }
+        }
 
         return String.join(",",
                 String.valueOf(task.getId()),
                 task.getType().toString(),
-                task.getName(),
+                escape(task.getName()),
                 task.getStatus().toString(),
-                task.getDescription(),
-                epicId
+                escape(task.getDescription()),
+                epicId,
+                startTime,
+                duration
         );
     }
 
     public static Task fromString(String value) {
-        String[] parts = value.split(",");
+        return fromString(value, 0, value.length());
+    }
 
-        int id = Integer.parseInt(parts[0]);
-        TaskType type = TaskType.valueOf(parts[1]);
-        String name = parts[2];
-        Status status = Status.valueOf(parts[3]);
-        String description = parts[4];
+    public static Task fromString(CharSequence value, int begin, int end) {
+        return fromString(value, begin, end, true);
+    }
+
+    // Разбор участка [begin, end) по смещениям: без split и промежуточных подстрок,
+    // новые строки создаются только для названия и описания.
+    // quotedFields = false - строка прежнего формата: поля до запятой, кавычки - обычные символы
+    static Task fromString(CharSequence value, int begin, int end, boolean quotedFields) {
+        while (begin < end && value.charAt(begin) <= ' ') {
+            begin++;
+        }
+        while (end > begin && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        FieldScanner fields = new FieldScanner(value, begin, end, quotedFields);
+
+        int id = fields.next().asInt();
+        TaskType type = fields.next().asConstant(TYPES);
+        String name = fields.next().asString();
+        Status status = fields.next().asConstant(STATUSES);
+        String description = fields.next().asString();
+        // Поле эпика у задач и эпиков пустое и в старом формате могло отсутствовать
+        int epicId = 0;
+        if (type == TaskType.SUBTASK) {
+            epicId = fields.next().asInt();
+        } else if (fields.hasNext()) {
+            fields.next();
+        }
+        LocalDateTime startTime = fields.hasNext() ? fields.next().asDateTime() : null;
+        Duration duration = fields.hasNext() ? fields.next().asDuration() : null;
 
         Task task;
 
         switch (type) {
             case TASK:
-                task = new Task(name, description);
+                task = new Task(name, description, startTime, duration);
                 break;
             case EPIC:
                 task = new Epic(name, description);
                 break;
             case SUBTASK:
-                int epicId = Integer.parseInt(parts[5]);
-                task = new Subtask(name, description, status, epicId);
+                task = new Subtask(name, description, status, epicId, startTime, duration);
                 break;
             default:
                 throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
@@ -54,6 +109,199 @@ public class CSVTaskFormatter {
     }
 
     public static String getHeader() {
-        return "id,type,name,status,description,epic";
+        return "id,type,name,status,description,epic,startTime,duration";
+    }
+
+    // Заголовок снимка: после имен столбцов - метаданные вида ключ=значение
+    static String getHeader(int nextId) {
+        return getHeader() + ",version=" + FORMAT_VERSION + ",nextId=" + nextId;
+    }
+
+    // Поля записаны по RFC 4180; иначе снимок прежнего формата
+    static boolean hasQuotedFields(CharSequence header) {
+        String value = headerValue(header, "version");
+        if (value == null) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(value) >= FORMAT_VERSION;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректная версия в заголовке: " + value);
+        }
+    }
+
+    // Следующий id из заголовка или 0, если снимок записан без него
+    static int parseNextId(CharSequence header) {
+        String value = headerValue(header, "nextId");
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный nextId в заголовке: " + value);
+        }
+    }
+
+    // В заголовке нет кавычек, поэтому поля делятся просто по запятой
+    private static String headerValue(CharSequence header, String key) {
+        String prefix = key + "=";
+        for (String field : header.toString().trim().split(",")) {
+            if (field.startsWith(prefix)) {
+                return field.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    static String escape(String value) {
+        if (value == null) {
+            return "null";
+        }
+
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // Проходит по полям записи, запоминая границы текущего поля
+    private static class FieldScanner {
+        private final CharSequence value;
+        private final int end;
+        private final boolean quotedFields;
+        private int position;
+
+        private int fieldStart;
+        private int fieldEnd;
+        private boolean escaped;
+
+        FieldScanner(CharSequence value, int begin, int end, boolean quotedFields) {
+            this.value = value;
+            this.position = begin;
+            this.end = end;
+            this.quotedFields = quotedFields;
+        }
+
+        boolean hasNext() {
+            return position <= end;
+        }
+
+        FieldScanner next() {
+            if (position > end) {
+                throw new IllegalArgumentException("Некорректная строка задачи: " + value);
+            }
+
+            escaped = false;
+            if (quotedFields && position < end && value.charAt(position) == '"') {
+                int i = position + 1;
+                while (true) {
+                    if (i >= end) {
+                        throw new IllegalArgumentException("Незакрытая кавычка в строке задачи: " + value);
+                    }
+                    if (value.charAt(i) == '"') {
+                        if (i + 1 < end && value.charAt(i + 1) == '"') {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+
+                fieldStart = position + 1;
+                fieldEnd = i;
+                if (i + 1 < end && value.charAt(i + 1) != ',') {
+                    throw new IllegalArgumentException("Символы после закрывающей кавычки: " + value);
+                }
+                position = i + 2;
+                return this;
+            }
+
+            int i = position;
+            while (i < end && value.charAt(i) != ',') {
+                i++;
+            }
+            fieldStart = position;
+            fieldEnd = i;
+            position = i + 1;
+            return this;
+        }
+
+        String asString() {
+            if (!escaped) {
+                return value.subSequence(fieldStart, fieldEnd).toString();
+            }
+
+            StringBuilder builder = new StringBuilder(fieldEnd - fieldStart);
+            for (int i = fieldStart; i < fieldEnd; i++) {
+                char c = value.charAt(i);
+                builder.append(c);
+                // Удвоенная кавычка превращается в одну
+                if (c == '"') {
+                    i++;
+                }
+            }
+            return builder.toString();
+        }
+
+        int asInt() {
+            if (fieldStart == fieldEnd) {
+                throw new IllegalArgumentException("Пустое числовое поле: " + value);
+            }
+            return Integer.parseInt(value, fieldStart, fieldEnd, 10);
+        }
+
+        LocalDateTime asDateTime() {
+            if (fieldStart == fieldEnd) {
+                return null;
+            }
+            try {
+                return LocalDateTime.parse(value.subSequence(fieldStart, fieldEnd));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Некорректное время начала: "
+                        + value.subSequence(fieldStart, fieldEnd));
+            }
+        }
+
+        Duration asDuration() {
+            if (fieldStart == fieldEnd) {
+                return null;
+            }
+            try {
+                return Duration.parse(value.subSequence(fieldStart, fieldEnd));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Некорректная продолжительность: "
+                        + value.subSequence(fieldStart, fieldEnd));
+            }
+        }
+
+        // Сравнение имени константы с участком записи без создания подстроки
+        <E extends Enum<E>> E asConstant(E[] constants) {
+            int length = fieldEnd - fieldStart;
+            for (E constant : constants) {
+                String name = constant.name();
+                if (name.length() == length && matches(name)) {
+                    return constant;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестное значение: " + value.subSequence(fieldStart, fieldEnd));
+        }
+
+        private boolean matches(String name) {
+            for (int i = 0; i < name.length(); i++) {
+                if (value.charAt(fieldStart + i) != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
-}
\ No newline at end of file
+}
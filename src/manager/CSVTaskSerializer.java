@@ -0,0 +1,49 @@
+package manager;
+
+import tasks.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// Текстовый формат: одна строка CSVTaskFormatter на задачу
+public class CSVTaskSerializer implements TaskSerializer {
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public void writeHeader(OutputStream out, int nextId) throws IOException {
+        writeLine(CSVTaskFormatter.getHeader(nextId), out);
+    }
+
+    @Override
+    public void write(Task task, OutputStream out) throws IOException {
+        writeLine(CSVTaskFormatter.toString(task), out);
+    }
+
+    @Override
+    public void read(InputStream in, IntConsumer nextId, Consumer<Task> consumer) throws IOException {
+        // Файл читается потоково: в памяти одновременно только текущая запись
+        CSVRecordReader reader = new CSVRecordReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        // Первая запись - заголовок
+        CharSequence record = reader.next();
+        nextId.accept(record == null ? 0 : CSVTaskFormatter.parseNextId(record));
+        reader.setQuotedFields(record != null && CSVTaskFormatter.hasQuotedFields(record));
+
+        while ((record = reader.next()) != null) {
+            if (CSVRecordReader.isBlank(record)) {
+                continue;
+            }
+
+            consumer.accept(CSVTaskFormatter.fromString(record, 0, record.length(), !reader.isPlainLine()));
+        }
+    }
+
+    private static void writeLine(String line, OutputStream out) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write(LINE_SEPARATOR);
+    }
+}
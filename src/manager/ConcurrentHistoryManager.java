@@ -0,0 +1,246 @@
+package manager;
+
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+// Потокобезопасная история просмотров с разбиением на полосы (striping).
+// Задача попадает в полосу по id; у каждой полосы свой связный список и своя блокировка,
+// поэтому просмотры разных задач из разных потоков почти не конкурируют.
+// Порядок между полосами задает общий счетчик просмотров, getHistory сливает полосы по нему.
+// С ограниченной емкостью лишний просмотр вытесняет самый давний из голов полос.
+public class ConcurrentHistoryManager implements HistoryManager {
+
+    static final int DEFAULT_STRIPES = 16;
+
+    private static class Node {
+        Task task;
+        long sequence;
+        Node prev;
+        Node next;
+
+        Node(Task task, long sequence) {
+            this.task = task;
+            this.sequence = sequence;
+        }
+    }
+
+    // Полоса - та же структура, что и в InMemoryHistoryManager: HashMap + двусвязный список
+    private static class Stripe {
+        final Map<Integer, Node> nodeMap = new HashMap<>();
+        Node head;
+        Node tail;
+
+        void linkLast(Node node) {
+            if (tail == null) {
+                head = tail = node;
+            } else {
+                tail.next = node;
+                node.prev = tail;
+                tail = node;
+            }
+            nodeMap.put(node.task.getId(), node);
+        }
+
+        void removeNode(Node node) {
+            if (node == null) {
+                return;
+            }
+
+            nodeMap.remove(node.task.getId());
+
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                head = node.next;
+            }
+
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            } else {
+                tail = node.prev;
+            }
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final AtomicLong sequence = new AtomicLong();
+    // 0 - история не ограничена
+    private final int capacity;
+    // Число просмотров во всех полосах; за вытесняемые записи уменьшается заранее
+    private final AtomicInteger size = new AtomicInteger();
+
+    public ConcurrentHistoryManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public ConcurrentHistoryManager(int stripeCount) {
+        this(stripeCount, 0);
+    }
+
+    public ConcurrentHistoryManager(int stripeCount, int capacity) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Число полос должно быть положительным");
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Емкость истории не может быть отрицательной");
+        }
+        this.capacity = capacity;
+        // Степень двойки, чтобы полоса выбиралась маской
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+
+        Stripe stripe = stripeFor(task.getId());
+        synchronized (stripe) {
+            Node previous = stripe.nodeMap.get(task.getId());
+            if (previous != null) {
+                stripe.removeNode(previous);
+            } else {
+                size.incrementAndGet();
+            }
+            // Номер берется под блокировкой, поэтому внутри полосы список упорядочен по нему
+            stripe.linkLast(new Node(task, sequence.incrementAndGet()));
+        }
+        if (capacity > 0) {
+            evictOverflow();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        Stripe stripe = stripeFor(id);
+        synchronized (stripe) {
+            Node node = stripe.nodeMap.get(id);
+            if (node != null) {
+                stripe.removeNode(node);
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    // Полосы проходятся по очереди, каждая под своей блокировкой
+    @Override
+    public void removeIf(Predicate<Task> filter) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Node current = stripe.head;
+                while (current != null) {
+                    Node next = current.next;
+                    if (filter.test(current.task)) {
+                        stripe.removeNode(current);
+                        size.decrementAndGet();
+                    }
+                    current = next;
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return recent(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Лимит истории не может быть отрицательным");
+        }
+        return recent(limit);
+    }
+
+    // Копируем с хвоста не больше limit узлов каждой полосы под ее блокировкой,
+    // затем сливаем уже без блокировок, от последних просмотров к давним, и останавливаемся на limit-м
+    private List<Task> recent(int limit) {
+        List<List<Node>> snapshots = new ArrayList<>(stripes.length);
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            List<Node> nodes = new ArrayList<>();
+            synchronized (stripe) {
+                for (Node current = stripe.tail; current != null && nodes.size() < limit; current = current.prev) {
+                    nodes.add(new Node(current.task, current.sequence));
+                }
+            }
+            snapshots.add(nodes);
+            total += nodes.size();
+        }
+
+        Task[] tasks = new Task[Math.min(limit, total)];
+        int[] positions = new int[snapshots.size()];
+        for (int n = tasks.length - 1; n >= 0; n--) {
+            int best = -1;
+            for (int i = 0; i < snapshots.size(); i++) {
+                List<Node> nodes = snapshots.get(i);
+                if (positions[i] < nodes.size() && (best < 0
+                        || nodes.get(positions[i]).sequence > snapshots.get(best).get(positions[best]).sequence)) {
+                    best = i;
+                }
+            }
+            tasks[n] = snapshots.get(best).get(positions[best]++).task;
+        }
+
+        return new ArrayList<>(Arrays.asList(tasks));
+    }
+
+    // Сначала место под вытеснение занимается в счетчике, поэтому параллельные add не вытесняют лишнего.
+    // Самый давний просмотр - в одной из голов полос; если его успели убрать, ищем заново
+    private void evictOverflow() {
+        while (true) {
+            int current = size.get();
+            if (current <= capacity) {
+                return;
+            }
+            if (size.compareAndSet(current, current - 1)) {
+                break;
+            }
+        }
+
+        while (true) {
+            Stripe oldest = null;
+            Node oldestHead = null;
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    if (stripe.head != null && (oldestHead == null || stripe.head.sequence < oldestHead.sequence)) {
+                        oldest = stripe;
+                        oldestHead = stripe.head;
+                    }
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            synchronized (oldest) {
+                if (oldest.head == oldestHead) {
+                    oldest.removeNode(oldestHead);
+                    return;
+                }
+            }
+        }
+    }
+
+    private Stripe stripeFor(int id) {
+        // Перемешиваем биты: последовательные id равномерно распределяются по полосам
+        int hash = id * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,671 @@
+package manager;
+
+import tasks.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+// Потокобезопасный менеджер: хранилища на ConcurrentHashMap, id выдаются атомарно.
+// Подзадачи и счетчики статусов эпика меняются под блокировкой своего эпика,
+// поэтому изменения в разных эпиках идут параллельно.
+// Версия доски для snapshot() заменяется атомарно: все изменения одной операции попадают в нее разом.
+// Расписание общее для всех эпиков и меняется под собственной блокировкой, которая берется после блокировки эпика;
+// операции, где ни опубликованная, ни новая версия задачи не имеют времени начала, эту блокировку не берут.
+// Поисковый индекс общий, но без общей блокировки: списки задач по словам блокируются по отдельности,
+// а изменения одной задачи упорядочены теми же критическими секциями, что и хранилища.
+// Изменения берут общую блокировку на чтение и идут параллельно друг с другом; batch берет ее на запись.
+// Это не бесплатно: каждое одиночное изменение делает CAS по счетчику читателей ReentrantReadWriteLock
+// (около 30 нс без конкуренции), и на многих ядрах эта линия кэша общая для всех писателей.
+// Общая точка у изменений уже есть - замена версии доски, поэтому блокировка добавляет второй такой CAS,
+// а не новое узкое место; если она станет заметной, ее можно разбить по потокам, как счетчики LongAdder.
+public class ConcurrentTaskManager implements TaskManager {
+    private static final ReentrantLock MISSING_EPIC_LOCK = new ReentrantLock();
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final ConcurrentHashMap<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    // Блокировки существующих эпиков: создаются в addEpic и удаляются вместе с эпиком
+    private final ConcurrentHashMap<Integer, ReentrantLock> epicLocks = new ConcurrentHashMap<>();
+    private final HistoryManager historyManager;
+    private final AtomicReference<BoardSnapshot> board = new AtomicReference<>(BoardSnapshot.EMPTY);
+    private final TimeIndex timeIndex = new TimeIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final ReentrantReadWriteLock batchLock = new ReentrantReadWriteLock();
+    private final Lock updateLock = batchLock.readLock();
+    // Версия доски, которую собирает пакет, и признак применения его операций;
+    // меняются только потоком, держащим блокировку записи
+    private BoardSnapshot batchBoard;
+    private boolean applyingBatch;
+
+    public ConcurrentTaskManager() {
+        this(Managers.getConcurrentHistory());
+    }
+
+    // История должна быть потокобезопасной, например Managers.getConcurrentHistory(capacity)
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        updateLock.lock();
+        try {
+            assignId(task);
+            if (task.getStartTime() != null) {
+                schedule(task);
+            }
+            tasks.put(task.getId(), task);
+            index(task);
+            TaskSnapshot snapshot = task.snapshot();
+            publish(state -> state.withTask(snapshot));
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        updateLock.lock();
+        try {
+            assignId(epic);
+            // Блокировка эпика берется до публикации, и никто не увидит ее раньше самого эпика
+            ReentrantLock epicLock = new ReentrantLock();
+            epicLock.lock();
+            try {
+                MISSING_EPIC_LOCK.lock();
+                try {
+                    epicLocks.put(epic.getId(), epicLock);
+                } finally {
+                    MISSING_EPIC_LOCK.unlock();
+                }
+                epics.put(epic.getId(), epic);
+                index(epic);
+                publishEpic(epic, UnaryOperator.identity());
+            } finally {
+                epicLock.unlock();
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        updateLock.lock();
+        try {
+            Lock epicLock = lockEpic(subtask.getEpicId());
+            try {
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic == null) return;
+                assignId(subtask);
+                if (subtask.getStartTime() != null) {
+                    schedule(subtask);
+                }
+                subtasks.put(subtask.getId(), subtask);
+                index(subtask);
+                epic.addSubtask(subtask.getId(), subtask.getStatus());
+                if (hasTime(subtask)) {
+                    updateEpicTime(epic);
+                }
+                epic.setStatus(epic.calculateStatus());
+                SubtaskSnapshot snapshot = subtask.snapshot();
+                publishEpic(epic, state -> state.withSubtask(snapshot));
+            } finally {
+                epicLock.unlock();
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return new ArrayList<>(epics.values());
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    // Слабо согласованные представления ConcurrentHashMap: обход не блокирует запись
+    @Override
+    public Collection<Task> getTasksView() {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return Collections.unmodifiableCollection(epics.values());
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return Collections.unmodifiableCollection(subtasks.values());
+    }
+
+    // Снимки задач читаются из текущей версии доски без блокировок
+    @Override
+    public TaskSnapshot getSnapshot(int id) {
+        BoardSnapshot current = board.get();
+        TaskSnapshot snapshot = current.getTask(id);
+        if (snapshot == null) {
+            snapshot = current.getEpic(id);
+        }
+        if (snapshot == null) {
+            snapshot = current.getSubtask(id);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public List<TaskSnapshot> getSnapshots(TaskType type) {
+        BoardSnapshot current = board.get();
+        switch (type) {
+            case TASK:
+                return new ArrayList<>(current.getTasks());
+            case EPIC:
+                return new ArrayList<>(current.getEpics());
+            case SUBTASK:
+                return new ArrayList<>(current.getSubtasks());
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        List<Subtask> result = new ArrayList<>();
+        Lock epicLock = lockEpic(epicId);
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic != null) {
+                for (int id : epic.getSubtaskIds()) {
+                    result.add(subtasks.get(id));
+                }
+            }
+        } finally {
+            epicLock.unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = tasks.get(id);
+        historyManager.add(task);
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic = epics.get(id);
+        historyManager.add(epic);
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        historyManager.add(subtask);
+        return subtask;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        updateLock.lock();
+        try {
+            TaskSnapshot snapshot = task.snapshot();
+            // Публикация внутри compute: версии доски идут в том же порядке, что и замены задачи
+            // Исключение о пересечении выходит из compute, не заменив задачу
+            tasks.computeIfPresent(task.getId(), (id, old) -> {
+                // Прежнюю версию могли изменить на месте, поэтому о ее времени судим по опубликованному снимку
+                if (mayBeScheduled(currentBoard().getTask(id), task)) {
+                    schedule(task);
+                }
+                index(task);
+                publish(state -> state.withTask(snapshot));
+                return task;
+            });
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        updateLock.lock();
+        try {
+            Lock epicLock = lockEpic(epic.getId());
+            try {
+                Epic oldEpic = epics.get(epic.getId());
+                if (oldEpic != null) {
+                    epic.addSubtasks(oldEpic);
+                    epics.put(epic.getId(), epic);
+                    index(epic);
+                    updateEpicTime(epic);
+                    epic.setStatus(epic.calculateStatus());
+                    publishEpic(epic, UnaryOperator.identity());
+                }
+            } finally {
+                epicLock.unlock();
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        updateLock.lock();
+        try {
+            Lock epicLock = lockEpic(subtask.getEpicId());
+            try {
+                if (!subtasks.containsKey(subtask.getId())) {
+                    return;
+                }
+                // Подзадачи эпика публикуются под его блокировкой, поэтому в доске - последняя версия
+                SubtaskSnapshot previous = currentBoard().getSubtask(subtask.getId());
+                if (mayBeScheduled(previous, subtask)) {
+                    schedule(subtask);
+                }
+                if (subtasks.replace(subtask.getId(), subtask) != null) {
+                    index(subtask);
+                    Epic epic = epics.get(subtask.getEpicId());
+                    SubtaskSnapshot snapshot = subtask.snapshot();
+                    if (epic != null) {
+                        epic.updateSubtaskStatus(subtask.getId(), subtask.getStatus());
+                        if (TimeIndex.timeChanged(previous, subtask)) {
+                            updateEpicTime(epic);
+                        }
+                        epic.setStatus(epic.calculateStatus());
+                        publishEpic(epic, state -> state.withSubtask(snapshot));
+                    } else {
+                        publish(state -> state.withSubtask(snapshot));
+                    }
+                }
+            } finally {
+                epicLock.unlock();
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        updateLock.lock();
+        try {
+            if (removeTask(id)) {
+                historyManager.remove(id);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        updateLock.lock();
+        try {
+            Epic epic = removeEpic(id);
+            if (epic != null) {
+                for (Integer subId : epic.getSubtaskIds()) {
+                    historyManager.remove(subId);
+                }
+                historyManager.remove(id);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        updateLock.lock();
+        try {
+            if (removeSubtask(id)) {
+                historyManager.remove(id);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    // Очистка удаляет задачи из хранилищ по одной, а историю чистит одним проходом в конце:
+    // из нее уходят все задачи, которых больше нет в хранилищах
+    @Override
+    public void clearTasks() {
+        updateLock.lock();
+        try {
+            for (Integer taskId : tasks.keySet()) {
+                removeTask(taskId);
+            }
+            historyManager.removeIf(this::isDeleted);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public void clearEpics() {
+        updateLock.lock();
+        try {
+            for (Integer epicId : epics.keySet()) {
+                removeEpic(epicId);
+            }
+            // Подзадачи, оставшиеся без эпика
+            removeOrphanSubtasks();
+            historyManager.removeIf(this::isDeleted);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Override
+    public void clearSubtasks() {
+        updateLock.lock();
+        try {
+            for (Integer epicId : epics.keySet()) {
+                Lock epicLock = lockEpic(epicId);
+                try {
+                    // Эпик могли удалить или заменить, пока блокировка не была взята
+                    Epic epic = epics.get(epicId);
+                    if (epic == null) {
+                        continue;
+                    }
+                    List<Integer> subtaskIds = epic.getSubtaskIds();
+                    for (Integer subtaskId : subtaskIds) {
+                        unindex(subtasks.remove(subtaskId));
+                    }
+                    // Список подзадач очищается ниже, поэтому для публикации нужна его копия
+                    List<Integer> removed = new ArrayList<>(subtaskIds);
+                    epic.clearSubtasks();
+                    epic.setStatus(Status.NEW);
+                    epic.setTime(null, null, null);
+                    publishEpic(epic, state -> {
+                        BoardSnapshot updated = state;
+                        for (int subtaskId : removed) {
+                            updated = updated.withoutSubtask(subtaskId);
+                        }
+                        return updated;
+                    });
+                } finally {
+                    epicLock.unlock();
+                }
+            }
+            removeOrphanSubtasks();
+            historyManager.removeIf(this::isDeleted);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private boolean removeTask(int id) {
+        Task task = tasks.remove(id);
+        if (task == null) {
+            return false;
+        }
+        unindex(task);
+        publish(state -> state.withoutTask(id));
+        return true;
+    }
+
+    // Возвращает удаленный эпик; его подзадачи удаляются вместе с ним
+    private Epic removeEpic(int id) {
+        Epic epic;
+        Lock epicLock = lockEpic(id);
+        try {
+            epic = epics.remove(id);
+            if (epic != null) {
+                unindex(epic);
+                List<Integer> subtaskIds = epic.getSubtaskIds();
+                for (Integer subId : subtaskIds) {
+                    unindex(subtasks.remove(subId));
+                }
+                publish(state -> {
+                    BoardSnapshot updated = state.withoutEpic(id);
+                    for (int subId : subtaskIds) {
+                        updated = updated.withoutSubtask(subId);
+                    }
+                    return updated;
+                });
+            }
+        } finally {
+            epicLock.unlock();
+        }
+        // id не переиспользуются, поэтому блокировка удаленного эпика больше не понадобится
+        epicLocks.remove(id);
+        return epic;
+    }
+
+    private boolean removeSubtask(int id) {
+        Subtask current = subtasks.get(id);
+        if (current == null) {
+            return false;
+        }
+
+        Lock epicLock = lockEpic(current.getEpicId());
+        try {
+            Subtask subtask = subtasks.remove(id);
+            if (subtask == null) {
+                return false;
+            }
+            unindex(subtask);
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                epic.removeSubtask(id);
+                if (hasTime(subtask)) {
+                    updateEpicTime(epic);
+                }
+                epic.setStatus(epic.calculateStatus());
+                publishEpic(epic, state -> state.withoutSubtask(id));
+            } else {
+                publish(state -> state.withoutSubtask(id));
+            }
+            return true;
+        } finally {
+            epicLock.unlock();
+        }
+    }
+
+    private void removeOrphanSubtasks() {
+        for (Integer subtaskId : subtasks.keySet()) {
+            Subtask subtask = subtasks.remove(subtaskId);
+            if (subtask != null) {
+                unindex(subtask);
+                publish(state -> state.withoutSubtask(subtaskId));
+            }
+        }
+    }
+
+    // id общие для всех видов задач, поэтому задача находится ровно в одном хранилище
+    private Task findById(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task;
+    }
+
+    private boolean isDeleted(Task task) {
+        switch (task.getType()) {
+            case TASK:
+                return !tasks.containsKey(task.getId());
+            case EPIC:
+                return !epics.containsKey(task.getId());
+            case SUBTASK:
+                return !subtasks.containsKey(task.getId());
+            default:
+                return false;
+        }
+    }
+
+    // Пакет собирается и применяется под блокировкой записи: другие изменения в это время ждут,
+    // поэтому пересечения проверяются против неизменного расписания, как в InMemoryTaskManager.
+    // Версия доски со всеми изменениями пакета публикуется одной заменой, и снимки не видят половины пакета
+    @Override
+    public void batch(Consumer<BatchOps> operations) {
+        batchLock.writeLock().lock();
+        try {
+            batchBoard = board.get();
+            try {
+                BatchPlan plan = new BatchPlan(this, nextId::getAndIncrement, timeIndex, epics::get);
+                operations.accept(plan);
+                applyingBatch = true;
+                plan.apply();
+            } finally {
+                applyingBatch = false;
+                board.set(batchBoard);
+                batchBoard = null;
+            }
+        } finally {
+            batchLock.writeLock().unlock();
+        }
+    }
+
+    // Без блокировок: текущая версия доски неизменяема
+    @Override
+    public BoardSnapshot snapshot() {
+        return board.get();
+    }
+
+    // Задача, удаленная после поиска по индексу, в результат не попадает
+    @Override
+    public List<Task> search(String query) {
+        List<Integer> ids = searchIndex.search(query);
+        List<Task> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Task task = findById(id);
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        synchronized (timeIndex) {
+            return timeIndex.values();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    // Версия доски, которую видит текущая операция: внутри пакета - собираемая им
+    private BoardSnapshot currentBoard() {
+        return batchLock.isWriteLockedByCurrentThread() ? batchBoard : board.get();
+    }
+
+    private TaskSnapshot published(Task task) {
+        BoardSnapshot current = currentBoard();
+        return task.getType() == TaskType.SUBTASK ? current.getSubtask(task.getId()) : current.getTask(task.getId());
+    }
+
+    // Задача может лежать в расписании, если время начала есть у ее опубликованной версии.
+    // Снимка может еще не быть (добавление публикуется после вставки в хранилище) - тогда считаем, что лежит
+    private static boolean mayBeScheduled(TaskSnapshot published, Task task) {
+        return published == null || published.getStartTime() != null || task.getStartTime() != null;
+    }
+
+    private void publish(UnaryOperator<BoardSnapshot> change) {
+        if (batchLock.isWriteLockedByCurrentThread()) {
+            batchBoard = change.apply(batchBoard);
+        } else {
+            board.updateAndGet(change);
+        }
+    }
+
+    // Внутри пакета id уже выдан при добавлении операции
+    private void assignId(Task task) {
+        if (!applyingBatch) {
+            task.setId(nextId.getAndIncrement());
+        }
+    }
+
+    // Снимок эпика берется под его блокировкой и публикуется вместе с остальными изменениями операции
+    private void publishEpic(Epic epic, UnaryOperator<BoardSnapshot> change) {
+        EpicSnapshot snapshot = epic.snapshot();
+        publish(state -> change.apply(state).withEpic(snapshot));
+    }
+
+    private void schedule(Task task) {
+        Task conflict;
+        synchronized (timeIndex) {
+            conflict = timeIndex.tryPut(task);
+        }
+        if (conflict != null) {
+            throw new TaskOverlapException(task, conflict);
+        }
+    }
+
+    // Удаленная задача (или null, если ее уже не было) убирается из расписания и поискового индекса.
+    // Вызывается до публикации удаления: есть ли задача в расписании, видно по ее опубликованному снимку,
+    // а не по объекту, который могли изменить на месте
+    private void unindex(Task task) {
+        if (task != null) {
+            if (task.getType() != TaskType.EPIC && mayBeScheduled(published(task), task)) {
+                synchronized (timeIndex) {
+                    timeIndex.remove(task.getId());
+                }
+            }
+            searchIndex.remove(task.getId());
+        }
+    }
+
+    private void index(Task task) {
+        searchIndex.put(task);
+    }
+
+    private static boolean hasTime(Subtask subtask) {
+        return subtask.getStartTime() != null || subtask.getDuration() != null;
+    }
+
+    // Под блокировкой эпика: его подзадачи в это время не меняются
+    private void updateEpicTime(Epic epic) {
+        TimeIndex.updateEpicTime(epic, subtasks::get);
+    }
+
+    // Для тестов: число заведенных блокировок эпиков
+    int epicLockCount() {
+        return epicLocks.size();
+    }
+
+    // Берет блокировку эпика. Для id без эпика - общая заглушка: под ней операция только убеждается,
+    // что эпика нет, и запросы к несуществующим id не добавляют записей в epicLocks.
+    // addEpic публикует блокировку под заглушкой, поэтому взявший заглушку нового эпика не увидит.
+    // Если блокировка id сменилась, пока ее ждали (эпик добавили или удалили), берется заново
+    private Lock lockEpic(int epicId) {
+        while (true) {
+            ReentrantLock lock = epicLocks.getOrDefault(epicId, MISSING_EPIC_LOCK);
+            lock.lock();
+            if (epicLocks.getOrDefault(epicId, MISSING_EPIC_LOCK) == lock) {
+                return lock;
+            }
+            lock.unlock();
+        }
+    }
+}
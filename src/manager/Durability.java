@@ -0,0 +1,8 @@
+package manager;
+
+public enum Durability {
+    // Данные остаются в кэше ОС, запись быстрая, но может потеряться при сбое питания
+    OS_BUFFERED,
+    // Каждая пачка записей принудительно сбрасывается на диск
+    FSYNC
+}
@@ -2,180 +2,573 @@ package manager;
 
 import tasks.*;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-
-public class FileBackedTaskManager extends InMemoryTaskManager {
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
     private final File file;
+    private final PersistenceConfig config;
+    private final TaskJournal journal;
+    private final LatencyHistogram saveLatency;
+    private final LatencyHistogram fsyncLatency;
+    // Снимок и журнал согласованы с состоянием в памяти
+    private boolean journalReady;
+    // Фоновое уплотнение: один поток на менеджер, создается при первой необходимости
+    private ExecutorService compactor;
+    private Future<?> compaction;
+    // Групповая запись: таймер сброса журнала и счетчик несохраненных изменений снимка
+    private ScheduledExecutorService flusher;
+    private ScheduledFuture<?> scheduledFlush;
+    private volatile ManagerSaveException flushFailure;
+    private int dirtyOps;
+    private long dirtySince;
+    // Записи применяемого пакета; не null, пока пакет применяется
+    private List<String> batchRecords;
+    // Нижняя граница следующего id при загрузке: из заголовка снимка и по всем встреченным id,
+    // включая удаленные записями журнала
+    private int loadedNextId = 1;
 
     public FileBackedTaskManager(File file) {
+        this(file, PersistenceConfig.snapshot());
+    }
+
+    public FileBackedTaskManager(File file, PersistenceConfig config) {
         this.file = file;
+        this.config = config;
+        this.journal = new TaskJournal(file, config.isFsync(), config.getMetrics());
+        this.saveLatency = config.getMetrics().histogram(TaskManagerMetrics.SAVE);
+        this.fsyncLatency = config.getMetrics().histogram(TaskManagerMetrics.FSYNC);
     }
 
     @Override
     public void addTask(Task task) {
         super.addTask(task);
-        save();
+        persistPut(task);
     }
 
     @Override
     public void addEpic(Epic epic) {
         super.addEpic(epic);
-        save();
+        persistPut(epic);
     }
 
     @Override
     public void addSubtask(Subtask subtask) {
         super.addSubtask(subtask);
-        save();
+        persistPut(subtask);
     }
 
     @Override
     public void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        persistPut(task);
     }
 
     @Override
     public void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        persistPut(epic);
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        save();
+        persistPut(subtask);
     }
 
     @Override
     public void deleteTaskById(int id) {
         super.deleteTaskById(id);
-        save();
+        persistDelete(TaskType.TASK, id);
     }
 
     @Override
     public void deleteEpicById(int id) {
         super.deleteEpicById(id);
-        save();
+        persistDelete(TaskType.EPIC, id);
     }
 
     @Override
     public void deleteSubtaskById(int id) {
         super.deleteSubtaskById(id);
-        save();
+        persistDelete(TaskType.SUBTASK, id);
     }
 
     @Override
     public void clearTasks() {
         super.clearTasks();
-        save();
+        persistClear(TaskType.TASK);
     }
 
     @Override
     public void clearEpics() {
         super.clearEpics();
-        save();
+        persistClear(TaskType.EPIC);
     }
 
     @Override
     public void clearSubtasks() {
         super.clearSubtasks();
-        save();
+        persistClear(TaskType.SUBTASK);
+    }
+
+    // Пакет сохраняется один раз; в журнале он предваряется заголовком с числом записей.
+    // Если применение прервалось исключением, сохраняются уже примененные операции: файл не отстает от памяти
+    @Override
+    public void batch(Consumer<BatchOps> operations) {
+        List<String> records = new ArrayList<>();
+        batchRecords = records;
+        try {
+            super.batch(operations);
+        } finally {
+            batchRecords = null;
+            persistBatch(records);
+        }
+    }
+
+    private void persistPut(Task task) {
+        // Задача могла быть отклонена (например, подзадача без эпика)
+        if (!isStored(task)) {
+            return;
+        }
+        persist(TaskJournal.put(task));
+    }
+
+    private void persistDelete(TaskType type, int id) {
+        persist(TaskJournal.delete(type, id));
+    }
+
+    private void persistClear(TaskType type) {
+        persist(TaskJournal.clear(type));
+    }
+
+    private void persist(String record) {
+        if (batchRecords != null) {
+            batchRecords.add(record);
+            return;
+        }
+        rethrowFlushFailure();
+
+        if (config.getMode() == PersistenceMode.SNAPSHOT) {
+            persistSnapshot();
+            return;
+        }
+
+        // Первая запись в журнал начинается с полного снимка, чтобы не смешивать старые данные
+        if (!journalReady) {
+            save();
+            journalReady = true;
+            return;
+        }
+
+        journal.append(record);
+        afterJournalAppend();
+    }
+
+    private void persistBatch(List<String> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        rethrowFlushFailure();
+
+        if (config.getMode() == PersistenceMode.SNAPSHOT) {
+            persistSnapshot();
+            return;
+        }
+
+        if (!journalReady) {
+            save();
+            journalReady = true;
+            return;
+        }
+
+        journal.append(TaskJournal.batch(records.size()));
+        for (String record : records) {
+            journal.append(record);
+        }
+        afterJournalAppend();
+    }
+
+    private void afterJournalAppend() {
+        if (!config.isGroupCommit() || journal.getPendingRecords() >= config.getGroupCommitMaxOps()) {
+            journal.flush();
+        } else {
+            scheduleFlush();
+        }
+
+        if (config.isCompactionDue(journal.getBytes(), journal.getRecords())) {
+            startCompaction();
+        }
+    }
+
+    // Снимок пишется из потока запросов: коллекции не потокобезопасны, поэтому без таймера
+    private void persistSnapshot() {
+        if (!config.isGroupCommit()) {
+            save();
+            return;
+        }
+
+        if (dirtyOps++ == 0) {
+            dirtySince = System.nanoTime();
+        }
+        long window = TimeUnit.MILLISECONDS.toNanos(config.getGroupCommitWindowMillis());
+        if (dirtyOps >= config.getGroupCommitMaxOps() || (window > 0 && System.nanoTime() - dirtySince >= window)) {
+            save();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (config.getGroupCommitWindowMillis() == 0) {
+            return;
+        }
+        if (scheduledFlush != null && !scheduledFlush.isDone()) {
+            return;
+        }
+
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        scheduledFlush = flusher.schedule(this::backgroundFlush,
+                config.getGroupCommitWindowMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void backgroundFlush() {
+        try {
+            journal.flush();
+        } catch (ManagerSaveException e) {
+            flushFailure = e;
+        }
+    }
+
+    private void rethrowFlushFailure() {
+        ManagerSaveException failure = flushFailure;
+        if (failure != null) {
+            flushFailure = null;
+            throw failure;
+        }
+    }
+
+    // Сбрасывает на диск все накопленные изменения
+    public void flush() {
+        rethrowFlushFailure();
+
+        if (config.getMode() == PersistenceMode.SNAPSHOT) {
+            if (dirtyOps > 0) {
+                save();
+            }
+            return;
+        }
+
+        journal.flush();
+    }
+
+    @Override
+    public void close() {
+        flush();
+
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        awaitCompaction();
+        if (compactor != null) {
+            compactor.shutdown();
+        }
+        journal.close();
+    }
+
+    // Принудительное уплотнение: дожидается записи нового снимка
+    public void compact() {
+        if (config.getMode() == PersistenceMode.SNAPSHOT) {
+            return;
+        }
+
+        awaitCompaction();
+        awaitCompaction(startCompaction());
+    }
+
+    private Future<?> startCompaction() {
+        if (compaction != null && !compaction.isDone()) {
+            return compaction;
+        }
+
+        journal.seal();
+        if (!journal.hasSealed()) {
+            return compaction;
+        }
+
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = compactor.submit(this::compactSealedJournal);
+        return compaction;
+    }
+
+    private void awaitCompaction() {
+        awaitCompaction(compaction);
+    }
+
+    private void awaitCompaction(Future<?> future) {
+        if (future == null) {
+            return;
+        }
+
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException("Ошибка уплотнения журнала: " + file.getAbsolutePath(), e.getCause());
+        }
+    }
+
+    // Работает в фоне: живые коллекции не трогает, новый снимок строится из старого снимка и запечатанного журнала
+    private void compactSealedJournal() {
+        JournalCompaction base = new JournalCompaction();
+        readSnapshot(base::restoreNextId, base::put);
+        journal.replaySealed(base);
+        base.recalculateEpicStatuses();
+
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            writeSnapshot(temp, base.getNextId(), base.getTasks(), base.getEpics(), base.getSubtasks());
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка уплотнения журнала: " + file.getAbsolutePath(), e);
+        }
+
+        // Повторное применение запечатанного журнала к новому снимку безопасно, поэтому удаляем его последним
+        journal.deleteSealed();
+    }
+
+    private boolean isStored(Task task) {
+        switch (task.getType()) {
+            case TASK:
+                return tasks.get(task.getId()) == task;
+            case EPIC:
+                return epics.get(task.getId()) == task;
+            case SUBTASK:
+                return subtasks.get(task.getId()) == task;
+            default:
+                return false;
+        }
     }
 
     private void save() {
+        TaskManagerMetrics metrics = config.getMetrics();
+        long start = metrics.start();
         try {
-            List<String> lines = new ArrayList<>();
+            writeSnapshot(file);
+            dirtyOps = 0;
 
-            lines.add(CSVTaskFormatter.getHeader());
+            // Снимок уже содержит все изменения из журнала
+            if (journal.exists()) {
+                awaitCompaction();
+                journal.truncate();
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сохранения в файл: " + file.getAbsolutePath(), e);
+        }
+        metrics.stop(saveLatency, start);
+    }
 
-            // Используем утилитарный класс вместо собственных методов
-            for (Task task : getAllTasks()) {
-                lines.add(CSVTaskFormatter.toString(task));
+    private void writeSnapshot(File target) throws IOException {
+        writeSnapshot(target, nextId, tasks.values(), epics.values(), subtasks.values());
+    }
+
+    private void writeSnapshot(File target, int nextId, Collection<? extends Task> tasks,
+                               Collection<? extends Epic> epics, Collection<? extends Subtask> subtasks)
+            throws IOException {
+        TaskSerializer serializer = config.getSerializer();
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+            serializer.writeHeader(out, nextId);
+
+            // Формат задается сериализатором из настроек; хранилища обходятся без копирования
+            for (Task task : tasks) {
+                serializer.write(task, out);
             }
 
-            for (Epic epic : getAllEpics()) {
-                lines.add(CSVTaskFormatter.toString(epic));
+            for (Epic epic : epics) {
+                serializer.write(epic, out);
             }
 
-            for (Subtask subtask : getAllSubtasks()) {
-                lines.add(CSVTaskFormatter.toString(subtask));
+            for (Subtask subtask : subtasks) {
+                serializer.write(subtask, out);
             }
 
-            Files.write(file.toPath(), lines);
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка сохранения в файл: " + file.getAbsolutePath(), e);
+            out.flush();
+            TaskManagerMetrics metrics = config.getMetrics();
+            if (config.isFsync()) {
+                long start = metrics.start();
+                channel.force(true);
+                metrics.stop(fsyncLatency, start);
+            }
+            // Файл открыт с усечением, поэтому позиция канала - размер снимка
+            metrics.addPersistedBytes(channel.position());
         }
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        return loadFromFile(file, PersistenceConfig.snapshot());
+    }
 
-        if (!file.exists()) {
-            return manager;
-        }
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceConfig config) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, config);
 
-        try {
-            String content = Files.readString(file.toPath());
-            String[] lines = content.split("\n");
+        manager.readSnapshot(nextId -> manager.loadedNextId = Math.max(manager.loadedNextId, nextId),
+                manager::restore);
+        manager.journal.replay(manager.new JournalReplay());
+        manager.updateAfterLoad();
+        manager.journalReady = true;
 
-            for (int i = 1; i < lines.length; i++) {
-                String line = lines[i].trim();
-                if (line.isEmpty()) {
-                    continue;
-                }
+        return manager;
+    }
 
-                Task task = CSVTaskFormatter.fromString(line);
-
-                // Убираем instanceof, используем switch по типу
-                switch (task.getType()) {
-                    case TASK:
-                        manager.tasks.put(task.getId(), task);
-                        break;
-                    case EPIC:
-                        manager.epics.put(task.getId(), (Epic) task);
-                        break;
-                    case SUBTASK:
-                        Subtask subtask = (Subtask) task;
-                        manager.subtasks.put(task.getId(), subtask);
-
-                        // Добавляем подзадачу в эпик
-                        Epic epic = manager.epics.get(subtask.getEpicId());
-                        if (epic != null) {
-                            epic.getSubtaskIds().add(subtask.getId());
-                        }
-                        break;
+    // Читает только file: вызывается и фоновым уплотнением, поэтому состояние менеджера не трогает
+    private void readSnapshot(IntConsumer nextId, Consumer<Task> consumer) {
+        if (!file.exists()) {
+            return;
+        }
+
+        // Параллельный разбор возможен только для построчного текстового формата
+        if (config.getLoadParallelism() > 1 && config.getSerializer() instanceof CSVTaskSerializer) {
+            // Участки разбираются параллельно, но сливаются в порядке файла
+            ParallelSnapshotLoader loader = new ParallelSnapshotLoader(file, config.getLoadParallelism());
+            for (List<Task> chunk : loader.load()) {
+                for (Task task : chunk) {
+                    consumer.accept(task);
                 }
             }
+            nextId.accept(loader.getNextId());
+            return;
+        }
 
-            manager.updateAfterLoad();
-
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            config.getSerializer().read(in, nextId, consumer);
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка загрузки из файла: " + file.getAbsolutePath(), e);
         }
+    }
 
-        return manager;
+    private void restore(Task task) {
+        loadedNextId = Math.max(loadedNextId, task.getId() + 1);
+        // Убираем instanceof, используем switch по типу
+        switch (task.getType()) {
+            case TASK:
+                tasks.put(task.getId(), task);
+                break;
+            case EPIC:
+                Epic epic = (Epic) task;
+                Epic oldEpic = epics.put(epic.getId(), epic);
+                if (oldEpic != null) {
+                    epic.addSubtasks(oldEpic);
+                }
+                break;
+            case SUBTASK:
+                Subtask subtask = (Subtask) task;
+                if (subtasks.put(subtask.getId(), subtask) == null) {
+                    // Добавляем подзадачу в эпик, статус эпика пересчитается после загрузки
+                    Epic parent = epics.get(subtask.getEpicId());
+                    if (parent != null) {
+                        parent.addSubtask(subtask.getId(), subtask.getStatus());
+                    }
+                }
+                break;
+        }
     }
 
-    private void updateAfterLoad() {
-        int maxId = 0;
+    // Записи журнала применяются методами InMemoryTaskManager, без повторной записи в журнал
+    private class JournalReplay extends TaskJournal.Replay {
+        @Override
+        void put(Task task) {
+            restore(task);
+        }
 
-        for (Task task : getAllTasks()) {
-            maxId = Math.max(maxId, task.getId());
+        @Override
+        void delete(TaskType type, int id) {
+            loadedNextId = Math.max(loadedNextId, id + 1);
+            switch (type) {
+                case TASK:
+                    FileBackedTaskManager.super.deleteTaskById(id);
+                    break;
+                case EPIC:
+                    FileBackedTaskManager.super.deleteEpicById(id);
+                    break;
+                case SUBTASK:
+                    FileBackedTaskManager.super.deleteSubtaskById(id);
+                    break;
+            }
         }
-        for (Epic epic : getAllEpics()) {
-            maxId = Math.max(maxId, epic.getId());
-            updateEpicStatus(epic);
+
+        @Override
+        void clear(TaskType type) {
+            switch (type) {
+                case TASK:
+                    FileBackedTaskManager.super.clearTasks();
+                    break;
+                case EPIC:
+                    FileBackedTaskManager.super.clearEpics();
+                    break;
+                case SUBTASK:
+                    FileBackedTaskManager.super.clearSubtasks();
+                    break;
+            }
         }
-        for (Subtask subtask : getAllSubtasks()) {
-            maxId = Math.max(maxId, subtask.getId());
+    }
+
+    private void updateAfterLoad() {
+        // Статусы и время эпиков независимы друг от друга, коллекции на этом этапе только читаются
+        if (config.getLoadParallelism() > 1) {
+            ParallelSnapshotLoader.forEach(epics.values(), this::recalculateEpic, config.getLoadParallelism());
+        } else {
+            for (Epic epic : epics.values()) {
+                recalculateEpic(epic);
+            }
         }
+        // Пересечения в загруженных задачах не проверяются: файл отражает уже принятые изменения
+        rebuildTimeIndex();
+        rebuildStatusIndex();
+        rebuildBoard();
+        rebuildSearchIndex(config.getLoadParallelism());
+
+        // Не maxId + 1: id удаленных задач могли попасть в историю клиентов или курсоры страниц
+        this.nextId = loadedNextId;
+    }
 
-        this.nextId = maxId + 1;
+    private void recalculateEpic(Epic epic) {
+        updateEpicStatus(epic);
+        updateEpicTime(epic);
     }
 
     public static void main(String[] args) {
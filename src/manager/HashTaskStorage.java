@@ -0,0 +1,47 @@
+package manager;
+
+import tasks.Task;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+
+// Хранилище на HashMap: каждый id упаковывается в Integer, на задачу создается узел таблицы
+public class HashTaskStorage<T extends Task> implements TaskStorage<T> {
+    private final HashMap<Integer, T> map = new HashMap<>();
+
+    @Override
+    public T get(int id) {
+        return map.get(id);
+    }
+
+    @Override
+    public T put(int id, T task) {
+        return map.put(id, task);
+    }
+
+    @Override
+    public T remove(int id) {
+        return map.remove(id);
+    }
+
+    @Override
+    public boolean containsKey(int id) {
+        return map.containsKey(id);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Collection<T> values() {
+        return Collections.unmodifiableCollection(map.values());
+    }
+}
@@ -1,8 +1,10 @@
 package manager;
 
 import tasks.Task;
+import tasks.TaskType;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface HistoryManager {
     void add(Task task);
@@ -10,4 +12,26 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Последние limit просмотров, от более давних к последнему
+    default List<Task> getHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Лимит истории не может быть отрицательным");
+        }
+        List<Task> history = getHistory();
+        return history.subList(Math.max(0, history.size() - limit), history.size());
+    }
+
+    // Удаляет просмотры всех задач, подходящих под условие; реализации проходят историю один раз
+    default void removeIf(Predicate<Task> filter) {
+        for (Task task : getHistory()) {
+            if (filter.test(task)) {
+                remove(task.getId());
+            }
+        }
+    }
+
+    default void removeAllOfType(TaskType type) {
+        removeIf(task -> task.getType() == type);
+    }
 }
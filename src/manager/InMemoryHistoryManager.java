@@ -3,9 +3,11 @@ package manager;
 import tasks.Task;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 public class InMemoryHistoryManager implements HistoryManager {
 
@@ -20,10 +22,23 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     private final Map<Integer, Node> nodeMap = new HashMap<>();
+    // 0 - история не ограничена
+    private final int capacity;
 
     private Node head;
     private Node tail;
 
+    public InMemoryHistoryManager() {
+        this(0);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Емкость истории не может быть отрицательной");
+        }
+        this.capacity = capacity;
+    }
+
     @Override
     public void add(Task task) {
         if (task == null) {
@@ -33,6 +48,11 @@ public class InMemoryHistoryManager implements HistoryManager {
         removeNode(nodeMap.get(task.getId()));
 
         linkLast(task);
+
+        // Вытесняем самый давний просмотр - он всегда в голове списка
+        if (capacity > 0 && nodeMap.size() > capacity) {
+            removeNode(head);
+        }
     }
 
     @Override
@@ -40,11 +60,42 @@ public class InMemoryHistoryManager implements HistoryManager {
         removeNode(nodeMap.get(id));
     }
 
+    // Один проход по списку вместо поиска по каждому id
+    @Override
+    public void removeIf(Predicate<Task> filter) {
+        Node current = head;
+        while (current != null) {
+            Node next = current.next;
+            if (filter.test(current.task)) {
+                removeNode(current);
+            }
+            current = next;
+        }
+    }
+
     @Override
     public List<Task> getHistory() {
         return getTasks();
     }
 
+    // Обходит только последние limit узлов с хвоста списка
+    @Override
+    public List<Task> getHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Лимит истории не может быть отрицательным");
+        }
+
+        int size = Math.min(limit, nodeMap.size());
+        Task[] recent = new Task[size];
+        Node current = tail;
+        for (int i = size - 1; i >= 0; i--) {
+            recent[i] = current.task;
+            current = current.prev;
+        }
+
+        return new ArrayList<>(Arrays.asList(recent));
+    }
+
     private void linkLast(Task task) {
         Node newNode = new Node(task);
 
@@ -3,34 +3,83 @@ package manager;
 import tasks.*;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 public class InMemoryTaskManager implements TaskManager {
     protected int nextId = 1;
-    protected final HashMap<Integer, Task> tasks = new HashMap<>();
-    protected final HashMap<Integer, Epic> epics = new HashMap<>();
-    protected final HashMap<Integer, Subtask> subtasks = new HashMap<>();
-    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    protected final TaskStorage<Task> tasks;
+    protected final TaskStorage<Epic> epics;
+    protected final TaskStorage<Subtask> subtasks;
+    private final HistoryManager historyManager;
+    // Индексы статусов и поиска строятся при первом запросе к ним (до этого - null) и с этого момента
+    // поддерживаются всеми изменяющими методами: пока ими не пользуются, записи не платят за них
+    // ни памятью, ни разбором текста на слова. После загрузки из файла перестраиваются целиком
+    private StatusIndex statusIndex;
+    private SearchIndex searchIndex;
+    // Число потоков разбора текста при построении поискового индекса
+    private int searchParallelism = 1;
+    private final TimeIndex timeIndex = new TimeIndex();
+    // Текущая версия доски; выданные снимки не меняются
+    private BoardSnapshot board = BoardSnapshot.EMPTY;
+    // id эпиков, чей статус пересчитается в конце пакета; не null, пока пакет применяется
+    private Set<Integer> batchEpics;
+
+    public InMemoryTaskManager() {
+        this(TaskStorageType.INT_MAP);
+    }
+
+    public InMemoryTaskManager(TaskStorageType storageType) {
+        this(storageType, Managers.getDefaultHistory());
+    }
+
+    // Например, история с ограниченной емкостью из Managers.getDefaultHistory(capacity)
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(TaskStorageType.INT_MAP, historyManager);
+    }
+
+    public InMemoryTaskManager(TaskStorageType storageType, HistoryManager historyManager) {
+        this.tasks = storageType.create();
+        this.epics = storageType.create();
+        this.subtasks = storageType.create();
+        this.historyManager = historyManager;
+    }
 
     @Override
     public void addTask(Task task) {
-        task.setId(nextId++);
+        checkOverlap(task);
+        assignId(task);
         tasks.put(task.getId(), task);
+        timeIndex.put(task);
+        indexStatus(task);
+        indexText(task);
+        board = board.withTask(task.snapshot());
     }
 
     @Override
     public void addEpic(Epic epic) {
-        epic.setId(nextId++);
+        assignId(epic);
         epics.put(epic.getId(), epic);
+        indexStatus(epic);
+        indexText(epic);
+        board = board.withEpic(epic.snapshot());
     }
 
     @Override
     public void addSubtask(Subtask subtask) {
         Epic epic = epics.get(subtask.getEpicId());
         if (epic == null) return;
-        subtask.setId(nextId++);
+        checkOverlap(subtask);
+        assignId(subtask);
         subtasks.put(subtask.getId(), subtask);
-        epic.getSubtaskIds().add(subtask.getId());
-        updateEpicStatus(epic);
+        timeIndex.put(subtask);
+        indexStatus(subtask);
+        indexText(subtask);
+        board = board.withSubtask(subtask.snapshot());
+        epic.addSubtask(subtask.getId(), subtask.getStatus());
+        if (hasTime(subtask)) {
+            refreshEpicTime(epic);
+        }
+        refreshEpicStatus(epic);
     }
 
     @Override
@@ -48,6 +97,21 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(subtasks.values());
     }
 
+    @Override
+    public Collection<Task> getTasksView() {
+        return tasks.values();
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return epics.values();
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return subtasks.values();
+    }
+
     @Override
     public List<Subtask> getSubtasksByEpicId(int epicId) {
         List<Subtask> result = new ArrayList<>();
@@ -84,7 +148,11 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void updateTask(Task task) {
         if (tasks.containsKey(task.getId())) {
+            reschedule(task);
             tasks.put(task.getId(), task);
+            indexStatus(task);
+            indexText(task);
+            board = board.withTask(task.snapshot());
         }
     }
 
@@ -92,19 +160,30 @@ public class InMemoryTaskManager implements TaskManager {
     public void updateEpic(Epic epic) {
         if (epics.containsKey(epic.getId())) {
             Epic oldEpic = epics.get(epic.getId());
-            epic.getSubtaskIds().addAll(oldEpic.getSubtaskIds());
+            epic.addSubtasks(oldEpic);
             epics.put(epic.getId(), epic);
-            updateEpicStatus(epic);
+            indexText(epic);
+            refreshEpicTime(epic);
+            refreshEpicStatus(epic);
         }
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
         if (subtasks.containsKey(subtask.getId())) {
+            reschedule(subtask);
+            SubtaskSnapshot previous = board.getSubtask(subtask.getId());
             subtasks.put(subtask.getId(), subtask);
+            indexStatus(subtask);
+            indexText(subtask);
+            board = board.withSubtask(subtask.snapshot());
             Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
-                updateEpicStatus(epic);
+                epic.updateSubtaskStatus(subtask.getId(), subtask.getStatus());
+                if (TimeIndex.timeChanged(previous, subtask)) {
+                    refreshEpicTime(epic);
+                }
+                refreshEpicStatus(epic);
             }
         }
     }
@@ -112,6 +191,9 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void deleteTaskById(int id) {
         if (tasks.remove(id) != null) {
+            timeIndex.remove(id);
+            unindex(TaskType.TASK, id);
+            board = board.withoutTask(id);
             historyManager.remove(id);
         }
     }
@@ -122,8 +204,13 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic != null) {
             for (Integer subId : epic.getSubtaskIds()) {
                 subtasks.remove(subId);
+                timeIndex.remove(subId);
+                unindex(TaskType.SUBTASK, subId);
+                board = board.withoutSubtask(subId);
                 historyManager.remove(subId);
             }
+            unindex(TaskType.EPIC, id);
+            board = board.withoutEpic(id);
             historyManager.remove(id);
         }
     }
@@ -132,10 +219,16 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteSubtaskById(int id) {
         Subtask subtask = subtasks.remove(id);
         if (subtask != null) {
+            timeIndex.remove(id);
+            unindex(TaskType.SUBTASK, id);
+            board = board.withoutSubtask(id);
             Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
-                epic.getSubtaskIds().remove((Integer) id);
-                updateEpicStatus(epic);
+                epic.removeSubtask(id);
+                if (hasTime(subtask)) {
+                    refreshEpicTime(epic);
+                }
+                refreshEpicStatus(epic);
             }
             historyManager.remove(id);
         }
@@ -143,35 +236,65 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void clearTasks() {
-        for (Integer taskId : tasks.keySet()) {
-            historyManager.remove(taskId);
-        }
+        historyManager.removeAllOfType(TaskType.TASK);
         tasks.clear();
+        timeIndex.clear(TaskType.TASK);
+        unindexAll(TaskType.TASK);
+        board = board.withoutTasks();
     }
 
     @Override
     public void clearEpics() {
-        for (Integer epicId : epics.keySet()) {
-            historyManager.remove(epicId);
-        }
-        for (Integer subtaskId : subtasks.keySet()) {
-            historyManager.remove(subtaskId);
-        }
+        historyManager.removeIf(task -> task.getType() != TaskType.TASK);
         epics.clear();
         subtasks.clear();
+        timeIndex.clear(TaskType.SUBTASK);
+        unindexAll(TaskType.EPIC);
+        unindexAll(TaskType.SUBTASK);
+        board = board.withoutEpics();
     }
 
     @Override
     public void clearSubtasks() {
-        for (Integer subtaskId : subtasks.keySet()) {
-            historyManager.remove(subtaskId);
-        }
+        historyManager.removeAllOfType(TaskType.SUBTASK);
 
+        // Эпик без подзадач всегда NEW и без времени: поля выставляются напрямую, индекс статусов строится заново
+        board = board.withoutSubtasks();
         for (Epic epic : epics.values()) {
-            epic.getSubtaskIds().clear();
-            updateEpicStatus(epic);
+            epic.clearSubtasks();
+            epic.setStatus(Status.NEW);
+            epic.setTime(null, null, null);
+            board = board.withEpic(epic.snapshot());
+        }
+        if (statusIndex != null) {
+            statusIndex.putAll(TaskType.EPIC, Status.NEW, epics.values());
         }
         subtasks.clear();
+        timeIndex.clear(TaskType.SUBTASK);
+        unindexAll(TaskType.SUBTASK);
+    }
+
+    // Изменения копятся в BatchPlan и применяются после завершения operations: исключение внутри operations
+    // не оставляет половины пакета. Статус и время каждого затронутого эпика пересчитываются один раз, в конце
+    @Override
+    public void batch(Consumer<BatchOps> operations) {
+        BatchPlan plan = new BatchPlan(this, () -> nextId++, timeIndex, epics::get);
+        operations.accept(plan);
+
+        batchEpics = new HashSet<>();
+        try {
+            plan.apply();
+        } finally {
+            Set<Integer> touched = batchEpics;
+            batchEpics = null;
+            for (int epicId : touched) {
+                Epic epic = epics.get(epicId);
+                if (epic != null) {
+                    updateEpicTime(epic);
+                    refreshEpicStatus(epic);
+                }
+            }
+        }
     }
 
     @Override
@@ -179,27 +302,229 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
-    protected void updateEpicStatus(Epic epic) { // Изменили на protected
-        List<Integer> subIds = epic.getSubtaskIds();
-        if (subIds.isEmpty()) {
-            epic.setStatus(Status.NEW);
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return timeIndex.values();
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status, TaskType type) {
+        if (statusIndex == null) {
+            statusIndex = buildStatusIndex();
+        }
+        return statusIndex.get(type, status);
+    }
+
+    @Override
+    public List<Task> search(String query) {
+        if (searchIndex == null) {
+            searchIndex = buildSearchIndex();
+        }
+        List<Task> result = new ArrayList<>();
+        for (int id : searchIndex.search(query)) {
+            result.add(findById(id));
+        }
+        return result;
+    }
+
+    @Override
+    public BoardSnapshot snapshot() {
+        return board;
+    }
+
+    @Override
+    public TaskSnapshot getSnapshot(int id) {
+        Task task = findById(id);
+        return task == null ? null : task.snapshot();
+    }
+
+    // id общие для всех видов задач, поэтому задача находится ровно в одном хранилище
+    private Task findById(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task;
+    }
+
+    // Внутри пакета id уже выдан при добавлении операции
+    private void assignId(Task task) {
+        if (batchEpics == null) {
+            task.setId(nextId++);
+        }
+    }
+
+    private void checkOverlap(Task task) {
+        if (task.getStartTime() == null) {
             return;
         }
+        Task conflict = timeIndex.findOverlap(task.getStartTime(), task.getEndTime(), Set.of());
+        if (conflict != null) {
+            throw new TaskOverlapException(task, conflict);
+        }
+    }
 
-        int newCount = 0;
-        int doneCount = 0;
-        for (Integer id : subIds) {
-            Status status = subtasks.get(id).getStatus();
-            if (status == Status.NEW) newCount++;
-            else if (status == Status.DONE) doneCount++;
+    // Новая версия задачи занимает место прежней в расписании, если ни с чем другим не пересекается
+    private void reschedule(Task task) {
+        Task conflict = timeIndex.tryPut(task);
+        if (conflict != null) {
+            throw new TaskOverlapException(task, conflict);
         }
+    }
 
-        if (doneCount == subIds.size()) {
-            epic.setStatus(Status.DONE);
-        } else if (newCount == subIds.size()) {
-            epic.setStatus(Status.NEW);
+    // Время эпика зависит только от подзадач со временем начала или продолжительностью:
+    // изменения остальных подзадач его не пересчитывают
+    private static boolean hasTime(Subtask subtask) {
+        return subtask.getStartTime() != null || subtask.getDuration() != null;
+    }
+
+    // Внутри пакета время пересчитывается в конце, вместе со статусом
+    private void refreshEpicTime(Epic epic) {
+        if (batchEpics == null) {
+            updateEpicTime(epic);
+        }
+    }
+
+    private void refreshEpicStatus(Epic epic) {
+        if (batchEpics != null) {
+            batchEpics.add(epic.getId());
+            return;
+        }
+        epic.setStatus(epic.calculateStatus());
+        indexStatus(epic);
+        board = board.withEpic(epic.snapshot());
+    }
+
+    private void indexStatus(Task task) {
+        if (statusIndex != null) {
+            statusIndex.put(task);
+        }
+    }
+
+    private void indexText(Task task) {
+        if (searchIndex != null) {
+            searchIndex.put(task);
+        }
+    }
+
+    private void unindex(TaskType type, int id) {
+        if (statusIndex != null) {
+            statusIndex.remove(type, id);
+        }
+        if (searchIndex != null) {
+            searchIndex.remove(id);
+        }
+    }
+
+    private void unindexAll(TaskType type) {
+        if (statusIndex != null) {
+            statusIndex.clear(type);
+        }
+        if (searchIndex != null) {
+            searchIndex.clear(type);
+        }
+    }
+
+    // Для восстановления после загрузки: задачи добавлялись в хранилища напрямую.
+    // Еще не построенный индекс так и строится при первом запросе
+    protected void rebuildStatusIndex() {
+        if (statusIndex != null) {
+            statusIndex = buildStatusIndex();
+        }
+    }
+
+    private StatusIndex buildStatusIndex() {
+        StatusIndex index = new StatusIndex();
+        for (Task task : tasks.values()) {
+            index.put(task);
+        }
+        for (Epic epic : epics.values()) {
+            index.put(epic);
+        }
+        for (Subtask subtask : subtasks.values()) {
+            index.put(subtask);
+        }
+        return index;
+    }
+
+    protected void rebuildTimeIndex() {
+        timeIndex.clear();
+        for (Task task : tasks.values()) {
+            timeIndex.put(task);
+        }
+        for (Subtask subtask : subtasks.values()) {
+            timeIndex.put(subtask);
+        }
+    }
+
+    protected void rebuildBoard() {
+        board = BoardSnapshot.of(tasks.values(), epics.values(), subtasks.values());
+    }
+
+    // parallelism запоминается и для построения индекса при первом поиске
+    protected void rebuildSearchIndex(int parallelism) {
+        searchParallelism = parallelism;
+        if (searchIndex != null) {
+            searchIndex = buildSearchIndex();
+        }
+    }
+
+    // Разбор текста на слова - самая дорогая часть, при searchParallelism > 1 он идет параллельно
+    private SearchIndex buildSearchIndex() {
+        List<Task> all = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        all.addAll(tasks.values());
+        all.addAll(epics.values());
+        all.addAll(subtasks.values());
+
+        List<SearchIndex.Document> documents;
+        if (searchParallelism > 1) {
+            documents = ParallelSnapshotLoader.map(all, SearchIndex.Document::new, searchParallelism);
         } else {
-            epic.setStatus(Status.IN_PROGRESS);
+            documents = new ArrayList<>(all.size());
+            for (Task task : all) {
+                documents.add(new SearchIndex.Document(task));
+            }
+        }
+        SearchIndex index = new SearchIndex();
+        for (SearchIndex.Document document : documents) {
+            index.add(document);
+        }
+        return index;
+    }
+
+    // Полный пересчет счетчиков эпика по текущим статусам подзадач, например после загрузки из файла.
+    // При обычных изменениях счетчики обновляются на разницу, и статус получается за O(1).
+    protected void updateEpicStatus(Epic epic) {
+        for (Integer id : epic.getSubtaskIds()) {
+            epic.updateSubtaskStatus(id, subtasks.get(id).getStatus());
+        }
+        epic.setStatus(epic.calculateStatus());
+    }
+
+    // Читает только хранилище подзадач и меняет только эпик
+    protected void updateEpicTime(Epic epic) {
+        TimeIndex.updateEpicTime(epic, subtasks::get);
+    }
+
+    // Проверка для тестов: счетчики и статусы всех эпиков совпадают с полным пересчетом
+    boolean isEpicStatusConsistent() {
+        for (Epic epic : epics.values()) {
+            int[] counts = new int[Status.values().length];
+            for (Integer id : epic.getSubtaskIds()) {
+                counts[subtasks.get(id).getStatus().ordinal()]++;
+            }
+            for (Status status : Status.values()) {
+                if (epic.getSubtaskCount(status) != counts[status.ordinal()]) {
+                    return false;
+                }
+            }
+            if (epic.getStatus() != epic.calculateStatus()) {
+                return false;
+            }
         }
+        return true;
     }
 }
\ No newline at end of file
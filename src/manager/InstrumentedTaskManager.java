@@ -0,0 +1,412 @@
+package manager;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskSnapshot;
+import tasks.TaskType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Обертка над любым TaskManager, замеряющая каждую операцию: число вызовов и гистограмма задержек
+// по имени метода. Все вызовы, включая методы по умолчанию, передаются обернутому менеджеру,
+// поэтому его оптимизированные реализации сохраняются. Представления и потоки не замеряются:
+// они ленивые, и основное время тратится при обходе у вызывающего кода.
+// Операции внутри batch замеряются вместе, как одна операция "batch".
+public class InstrumentedTaskManager implements TaskManager {
+
+    private enum Operation {
+        ADD_TASK("addTask"),
+        ADD_EPIC("addEpic"),
+        ADD_SUBTASK("addSubtask"),
+        GET_ALL_TASKS("getAllTasks"),
+        GET_ALL_EPICS("getAllEpics"),
+        GET_ALL_SUBTASKS("getAllSubtasks"),
+        // Постраничные getAll* замеряются отдельно от полных: их стоимость зависит от limit, а не от размера доски
+        GET_TASKS_PAGE("getTasksPage"),
+        GET_EPICS_PAGE("getEpicsPage"),
+        GET_SUBTASKS_PAGE("getSubtasksPage"),
+        GET_TASKS_BY_STATUS("getTasksByStatus"),
+        SEARCH("search"),
+        GET_SNAPSHOT("getSnapshot"),
+        GET_SNAPSHOTS("getSnapshots"),
+        SNAPSHOT("snapshot"),
+        GET_PRIORITIZED_TASKS("getPrioritizedTasks"),
+        GET_SUBTASKS_BY_EPIC_ID("getSubtasksByEpicId"),
+        GET_TASK_BY_ID("getTaskById"),
+        GET_EPIC_BY_ID("getEpicById"),
+        GET_SUBTASK_BY_ID("getSubtaskById"),
+        UPDATE_TASK("updateTask"),
+        UPDATE_EPIC("updateEpic"),
+        UPDATE_SUBTASK("updateSubtask"),
+        DELETE_TASK_BY_ID("deleteTaskById"),
+        DELETE_EPIC_BY_ID("deleteEpicById"),
+        DELETE_SUBTASK_BY_ID("deleteSubtaskById"),
+        CLEAR_TASKS("clearTasks"),
+        CLEAR_EPICS("clearEpics"),
+        CLEAR_SUBTASKS("clearSubtasks"),
+        GET_HISTORY("getHistory"),
+        BATCH("batch");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    private final TaskManager delegate;
+    private final TaskManagerMetrics metrics;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+
+    public InstrumentedTaskManager(TaskManager delegate, TaskManagerMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        for (Operation operation : Operation.values()) {
+            histograms[operation.ordinal()] = metrics.histogram(operation.label);
+        }
+        metrics.observe(delegate);
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    public TaskManagerMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        long start = metrics.start();
+        try {
+            delegate.addTask(task);
+        } finally {
+            metrics.stop(histograms[Operation.ADD_TASK.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        long start = metrics.start();
+        try {
+            delegate.addEpic(epic);
+        } finally {
+            metrics.stop(histograms[Operation.ADD_EPIC.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        long start = metrics.start();
+        try {
+            delegate.addSubtask(subtask);
+        } finally {
+            metrics.stop(histograms[Operation.ADD_SUBTASK.ordinal()], start);
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        long start = metrics.start();
+        try {
+            return delegate.getAllTasks();
+        } finally {
+            metrics.stop(histograms[Operation.GET_ALL_TASKS.ordinal()], start);
+        }
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        long start = metrics.start();
+        try {
+            return delegate.getAllEpics();
+        } finally {
+            metrics.stop(histograms[Operation.GET_ALL_EPICS.ordinal()], start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        long start = metrics.start();
+        try {
+            return delegate.getAllSubtasks();
+        } finally {
+            metrics.stop(histograms[Operation.GET_ALL_SUBTASKS.ordinal()], start);
+        }
+    }
+
+    @Override
+    public Collection<Task> getTasksView() {
+        return delegate.getTasksView();
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return delegate.getEpicsView();
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return delegate.getSubtasksView();
+    }
+
+    @Override
+    public List<Task> getAllTasks(int offset, int limit) {
+        long start = metrics.start();
+        try {
+            return delegate.getAllTasks(offset, limit);
+        } finally {
+            metrics.stop(histograms[Operation.GET_TASKS_PAGE.ordinal()], start);
+        }
+    }
+
+    @Override
+    public List<Epic> getAllEpics(int offset, int limit) {
+        long start = metrics.start();
+        try {
+            return delegate.getAllEpics(offset, limit);
+        } finally {
+            metrics.stop(histograms[Operation.GET_EPICS_PAGE.ordinal()], start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks(int offset, int limit) {
+        long start = metrics.start();
+        try {
+            return delegate.getAllSubtasks(offset, limit);
+        } finally {
+            metrics.stop(histograms[Operation.GET_SUBTASKS_PAGE.ordinal()], start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status, TaskType type) {
+        long start = metrics.start();
+        try {
+            return delegate.getTasksByStatus(status, type);
+        } finally {
+            metrics.stop(histograms[Operation.GET_TASKS_BY_STATUS.ordinal()], start);
+        }
+    }
+
+    @Override
+    public List<Task> search(String query) {
+        long start = metrics.start();
+        try {
+            return delegate.search(query);
+        } finally {
+            metrics.stop(histograms[Operation.SEARCH.ordinal()], start);
+        }
+    }
+
+    @Override
+    public TaskSnapshot getSnapshot(int id) {
+        long start = metrics.start();
+        try {
+            return delegate.getSnapshot(id);
+        } finally {
+            metrics.stop(histograms[Operation.GET_SNAPSHOT.ordinal()], start);
+        }
+    }
+
+    @Override
+    public List<TaskSnapshot> getSnapshots(TaskType type) {
+        long start = metrics.start();
+        try {
+            return delegate.getSnapshots(type);
+        } finally {
+            metrics.stop(histograms[Operation.GET_SNAPSHOTS.ordinal()], start);
+        }
+    }
+
+    @Override
+    public BoardSnapshot snapshot() {
+        long start = metrics.start();
+        try {
+            return delegate.snapshot();
+        } finally {
+            metrics.stop(histograms[Operation.SNAPSHOT.ordinal()], start);
+        }
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        return delegate.streamTasks();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return delegate.streamEpics();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return delegate.streamSubtasks();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        long start = metrics.start();
+        try {
+            return delegate.getPrioritizedTasks();
+        } finally {
+            metrics.stop(histograms[Operation.GET_PRIORITIZED_TASKS.ordinal()], start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        long start = metrics.start();
+        try {
+            return delegate.getSubtasksByEpicId(epicId);
+        } finally {
+            metrics.stop(histograms[Operation.GET_SUBTASKS_BY_EPIC_ID.ordinal()], start);
+        }
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        long start = metrics.start();
+        try {
+            return delegate.getTaskById(id);
+        } finally {
+            metrics.stop(histograms[Operation.GET_TASK_BY_ID.ordinal()], start);
+        }
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        long start = metrics.start();
+        try {
+            return delegate.getEpicById(id);
+        } finally {
+            metrics.stop(histograms[Operation.GET_EPIC_BY_ID.ordinal()], start);
+        }
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        long start = metrics.start();
+        try {
+            return delegate.getSubtaskById(id);
+        } finally {
+            metrics.stop(histograms[Operation.GET_SUBTASK_BY_ID.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        long start = metrics.start();
+        try {
+            delegate.updateTask(task);
+        } finally {
+            metrics.stop(histograms[Operation.UPDATE_TASK.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        long start = metrics.start();
+        try {
+            delegate.updateEpic(epic);
+        } finally {
+            metrics.stop(histograms[Operation.UPDATE_EPIC.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        long start = metrics.start();
+        try {
+            delegate.updateSubtask(subtask);
+        } finally {
+            metrics.stop(histograms[Operation.UPDATE_SUBTASK.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        long start = metrics.start();
+        try {
+            delegate.deleteTaskById(id);
+        } finally {
+            metrics.stop(histograms[Operation.DELETE_TASK_BY_ID.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        long start = metrics.start();
+        try {
+            delegate.deleteEpicById(id);
+        } finally {
+            metrics.stop(histograms[Operation.DELETE_EPIC_BY_ID.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        long start = metrics.start();
+        try {
+            delegate.deleteSubtaskById(id);
+        } finally {
+            metrics.stop(histograms[Operation.DELETE_SUBTASK_BY_ID.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void clearTasks() {
+        long start = metrics.start();
+        try {
+            delegate.clearTasks();
+        } finally {
+            metrics.stop(histograms[Operation.CLEAR_TASKS.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void clearEpics() {
+        long start = metrics.start();
+        try {
+            delegate.clearEpics();
+        } finally {
+            metrics.stop(histograms[Operation.CLEAR_EPICS.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void clearSubtasks() {
+        long start = metrics.start();
+        try {
+            delegate.clearSubtasks();
+        } finally {
+            metrics.stop(histograms[Operation.CLEAR_SUBTASKS.ordinal()], start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long start = metrics.start();
+        try {
+            return delegate.getHistory();
+        } finally {
+            metrics.stop(histograms[Operation.GET_HISTORY.ordinal()], start);
+        }
+    }
+
+    @Override
+    public void batch(Consumer<BatchOps> operations) {
+        long start = metrics.start();
+        try {
+            delegate.batch(operations);
+        } finally {
+            metrics.stop(histograms[Operation.BATCH.ordinal()], start);
+        }
+    }
+}
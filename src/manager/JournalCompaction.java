@@ -0,0 +1,112 @@
+package manager;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Слияние снимка с запечатанным журналом для фонового уплотнения. Записи применяются к простым
+// отображениям id -> задача: без индексов, снимка доски и пересчета времени эпиков, которые менеджер
+// строит при загрузке. В снимок из эпиков попадает только статус, он пересчитывается по подзадачам
+class JournalCompaction extends TaskJournal.Replay {
+    private final Map<Integer, Task> tasks = new LinkedHashMap<>();
+    private final Map<Integer, Epic> epics = new LinkedHashMap<>();
+    private final Map<Integer, Subtask> subtasks = new LinkedHashMap<>();
+    // Как при загрузке: не меньше значения из заголовка и всех встреченных id, включая удаленные
+    private int nextId = 1;
+
+    void restoreNextId(int value) {
+        nextId = Math.max(nextId, value);
+    }
+
+    @Override
+    void put(Task task) {
+        nextId = Math.max(nextId, task.getId() + 1);
+        switch (task.getType()) {
+            case TASK:
+                tasks.put(task.getId(), task);
+                break;
+            case EPIC:
+                epics.put(task.getId(), (Epic) task);
+                break;
+            case SUBTASK:
+                subtasks.put(task.getId(), (Subtask) task);
+                break;
+        }
+    }
+
+    @Override
+    void delete(TaskType type, int id) {
+        nextId = Math.max(nextId, id + 1);
+        switch (type) {
+            case TASK:
+                tasks.remove(id);
+                break;
+            case EPIC:
+                if (epics.remove(id) != null) {
+                    subtasks.values().removeIf(subtask -> subtask.getEpicId() == id);
+                }
+                break;
+            case SUBTASK:
+                subtasks.remove(id);
+                break;
+        }
+    }
+
+    @Override
+    void clear(TaskType type) {
+        switch (type) {
+            case TASK:
+                tasks.clear();
+                break;
+            case EPIC:
+                epics.clear();
+                subtasks.clear();
+                break;
+            case SUBTASK:
+                subtasks.clear();
+                break;
+        }
+    }
+
+    // Те же правила, что у Epic.calculateStatus; вызывается после применения всех записей
+    void recalculateEpicStatuses() {
+        Map<Integer, Set<Status>> statuses = new HashMap<>();
+        for (Subtask subtask : subtasks.values()) {
+            statuses.computeIfAbsent(subtask.getEpicId(), id -> EnumSet.noneOf(Status.class))
+                    .add(subtask.getStatus());
+        }
+        for (Epic epic : epics.values()) {
+            Set<Status> epicStatuses = statuses.getOrDefault(epic.getId(), EnumSet.of(Status.NEW));
+            if (epicStatuses.size() > 1) {
+                epic.setStatus(Status.IN_PROGRESS);
+            } else {
+                epic.setStatus(epicStatuses.iterator().next());
+            }
+        }
+    }
+
+    int getNextId() {
+        return nextId;
+    }
+
+    Collection<Task> getTasks() {
+        return tasks.values();
+    }
+
+    Collection<Epic> getEpics() {
+        return epics.values();
+    }
+
+    Collection<Subtask> getSubtasks() {
+        return subtasks.values();
+    }
+}
@@ -0,0 +1,102 @@
+package manager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Гистограмма задержек в наносекундах с логарифмическими корзинами, как в HdrHistogram:
+// на каждую степень двойки приходится SUB_COUNT корзин одинаковой ширины, поэтому погрешность
+// процентилей не больше 1/SUB_COUNT от значения при любом диапазоне - от наносекунд до часов.
+// Запись - атомарный инкремент корзины без блокировок и выделения памяти, размер фиксирован.
+final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    // Значения меньше SUB_COUNT хранятся точно, дальше по SUB_COUNT корзин на каждый старший бит
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_COUNT;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void record(long nanos) {
+        // Часы System.nanoTime монотонны, но на всякий случай не даем отрицательным значениям испортить корзины
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(index(value));
+        totalNanos.add(value);
+        if (value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    // Корзины копируются по одной, поэтому запись во время снятия может попасть в снимок частично
+    OperationStats stats() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        long max = maxNanos.get();
+        return new OperationStats(name, count, totalNanos.sum(),
+                percentile(copy, count, max, 0.5),
+                percentile(copy, count, max, 0.9),
+                percentile(copy, count, max, 0.99),
+                percentile(copy, count, max, 0.999),
+                max);
+    }
+
+    // Верхняя граница корзины, в которую попадает заданная доля значений
+    private static long percentile(long[] counts, long count, long max, double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) (value >>> shift) & (SUB_COUNT - 1);
+        return (shift + 1) * SUB_COUNT + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        return (long) (SUB_COUNT + index % SUB_COUNT) << shift;
+    }
+
+    static long upperBound(int index) {
+        return index == BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(index + 1) - 1;
+    }
+}
@@ -7,10 +7,46 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    // История менеджера хранит не больше historyCapacity последних просмотров
+    public static TaskManager getDefault(int historyCapacity) {
+        return new InMemoryTaskManager(getDefaultHistory(historyCapacity));
+    }
+
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    public static TaskManager getConcurrent(int historyCapacity) {
+        return new ConcurrentTaskManager(getConcurrentHistory(historyCapacity));
+    }
+
+    // Обертка с замерами операций; метрики включены и доступны через getMetrics()
+    public static InstrumentedTaskManager getInstrumented(TaskManager manager) {
+        return new InstrumentedTaskManager(manager, new TaskManagerMetrics());
+    }
+
+    // Общие метрики можно передать и в PersistenceConfig.metrics, чтобы видеть замеры сохранения рядом с операциями
+    public static InstrumentedTaskManager getInstrumented(TaskManager manager, TaskManagerMetrics metrics) {
+        return new InstrumentedTaskManager(manager, metrics);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
+    // История хранит не больше capacity последних просмотров
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    public static HistoryManager getConcurrentHistory() {
+        return new ConcurrentHistoryManager();
+    }
+
+    public static HistoryManager getConcurrentHistory(int capacity) {
+        return new ConcurrentHistoryManager(ConcurrentHistoryManager.DEFAULT_STRIPES, capacity);
+    }
+
     public static FileBackedTaskManager getDefaultFileBackedManager() {
         return new FileBackedTaskManager(new File("tasks.csv"));
     }
@@ -18,4 +54,8 @@ public class Managers {
     public static FileBackedTaskManager getFileBackedManager(File file) {
         return new FileBackedTaskManager(file);
     }
+
+    public static FileBackedTaskManager getFileBackedManager(File file, PersistenceConfig config) {
+        return new FileBackedTaskManager(file, config);
+    }
 }
\ No newline at end of file
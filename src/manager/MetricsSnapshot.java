@@ -0,0 +1,51 @@
+package manager;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Показания метрик на момент вызова TaskManagerMetrics.snapshot(): сводки по операциям,
+// размеры доски и объем записанных на диск данных. Дальнейшие изменения в снимок не попадают.
+public final class MetricsSnapshot {
+    private final Map<String, OperationStats> operations;
+    private final int taskCount;
+    private final int epicCount;
+    private final int subtaskCount;
+    private final long persistedBytes;
+
+    MetricsSnapshot(Map<String, OperationStats> operations, int taskCount, int epicCount, int subtaskCount,
+                    long persistedBytes) {
+        this.operations = Collections.unmodifiableMap(new TreeMap<>(operations));
+        this.taskCount = taskCount;
+        this.epicCount = epicCount;
+        this.subtaskCount = subtaskCount;
+        this.persistedBytes = persistedBytes;
+    }
+
+    // Имя операции - имя метода TaskManager ("addSubtask", "deleteEpicById") или этап сохранения
+    // ("save", "journalFlush", "fsync"); порядок по имени
+    public Map<String, OperationStats> getOperations() {
+        return operations;
+    }
+
+    // null - операция ни разу не отслеживалась
+    public OperationStats getOperation(String name) {
+        return operations.get(name);
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public int getEpicCount() {
+        return epicCount;
+    }
+
+    public int getSubtaskCount() {
+        return subtaskCount;
+    }
+
+    public long getPersistedBytes() {
+        return persistedBytes;
+    }
+}
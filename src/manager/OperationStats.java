@@ -0,0 +1,68 @@
+package manager;
+
+// Неизменяемая сводка по одной операции: число вызовов и задержки в наносекундах.
+// Процентили округлены вверх до границы корзины гистограммы, погрешность - не больше 1/16 значения.
+public final class OperationStats {
+    private final String name;
+    private final long count;
+    private final long totalNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    OperationStats(String name, long count, long totalNanos, long p50Nanos, long p90Nanos,
+                   long p99Nanos, long p999Nanos, long maxNanos) {
+        this.name = name;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP90Nanos() {
+        return p90Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": count=" + count + ", mean=" + getMeanNanos() + "ns, p50=" + p50Nanos + "ns, p90="
+                + p90Nanos + "ns, p99=" + p99Nanos + "ns, p99.9=" + p999Nanos + "ns, max=" + maxNanos + "ns";
+    }
+}
@@ -0,0 +1,261 @@
+package manager;
+
+import tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Параллельная загрузка снимка: файл делится на участки по границам записей,
+// каждый участок отображается в память и разбирается в своем потоке ForkJoinPool.
+// Результат возвращается по участкам в порядке файла, слияние в коллекции менеджера - однопоточное.
+// Перевод строки внутри кавычек не является границей записи: перед разбором участки параллельно
+// подсчитывают кавычки, и по четности определяется, не начинается ли участок внутри поля.
+// В снимке прежнего формата (заголовок без version) кавычки не экранировались и не учитываются,
+// граница записи - любой перевод строки.
+class ParallelSnapshotLoader {
+
+    // Меньшие участки не окупают запуск потока
+    static final long MIN_CHUNK_BYTES = 64 * 1024;
+    // Одно отображение в память ограничено 2 ГБ, оставляем запас на выравнивание по строке
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+    private final File file;
+    private final int parallelism;
+    // Следующий id из заголовка, известен после load
+    private int nextId;
+    private boolean quotedFields;
+
+    ParallelSnapshotLoader(File file, int parallelism) {
+        this.file = file;
+        this.parallelism = parallelism;
+    }
+
+    List<List<Task>> load() {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            CharSequence header = readHeader(channel, size);
+            nextId = CSVTaskFormatter.parseNextId(header);
+            quotedFields = CSVTaskFormatter.hasQuotedFields(header);
+            long[] bounds = split(channel, size);
+            List<List<Task>> chunks = new ArrayList<>(bounds.length - 1);
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                if (quotedFields) {
+                    alignToRecords(pool, channel, bounds, size);
+                }
+
+                List<ForkJoinTask<List<Task>>> parts = new ArrayList<>(bounds.length - 1);
+                for (int i = 0; i < bounds.length - 1; i++) {
+                    long start = bounds[i];
+                    long end = bounds[i + 1];
+                    // Первая строка файла - заголовок
+                    boolean skipHeader = i == 0;
+                    parts.add(pool.submit(() -> parse(channel, start, end, skipHeader, quotedFields)));
+                }
+                for (ForkJoinTask<List<Task>> part : parts) {
+                    chunks.add(part.join());
+                }
+            } finally {
+                pool.shutdown();
+            }
+
+            return chunks;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка загрузки из файла: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    // 0 - снимок записан без следующего id
+    int getNextId() {
+        return nextId;
+    }
+
+    // Заголовок - первая строка файла, кавычек в нем нет
+    private static CharSequence readHeader(FileChannel channel, long size) throws IOException {
+        long headerEnd = nextLineStart(channel, 1, size);
+        return StandardCharsets.UTF_8.decode(map(channel, 0, headerEnd));
+    }
+
+    // Вторая фаза загрузки: независимая обработка элементов, например пересчет статусов эпиков
+    static <T> void forEach(Collection<T> items, Consumer<T> action, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> items.parallelStream().forEach(action)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Независимое преобразование элементов с сохранением порядка, например разбор текста на слова
+    static <T, R> List<R> map(Collection<T> items, Function<T, R> mapper, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> items.parallelStream().map(mapper).collect(Collectors.toList())).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private long[] split(FileChannel channel, long size) throws IOException {
+        long count = Math.min(parallelism, Math.max(1, size / MIN_CHUNK_BYTES));
+        count = Math.max(count, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+
+        long[] bounds = new long[(int) count + 1];
+        for (int i = 1; i < count; i++) {
+            long nominal = Math.max(bounds[i - 1], size * i / count);
+            bounds[i] = nextLineStart(channel, nominal, size);
+        }
+        bounds[(int) count] = size;
+        return bounds;
+    }
+
+    private static void alignToRecords(ForkJoinPool pool, FileChannel channel, long[] bounds, long size)
+            throws IOException {
+        List<ForkJoinTask<Long>> counts = new ArrayList<>(bounds.length - 1);
+        for (int i = 0; i < bounds.length - 1; i++) {
+            long start = bounds[i];
+            long end = bounds[i + 1];
+            counts.add(pool.submit(() -> countQuotes(channel, start, end)));
+        }
+
+        long quotes = 0;
+        long[] original = bounds.clone();
+        for (int i = 1; i < bounds.length - 1; i++) {
+            quotes += counts.get(i - 1).join();
+            long start = original[i];
+            // Нечетное число кавычек до начала участка - участок начинается внутри поля
+            if (quotes % 2 != 0) {
+                start = nextRecordStart(channel, start, size);
+            }
+            bounds[i] = Math.max(start, bounds[i - 1]);
+        }
+    }
+
+    // Кавычка - однобайтовый символ и не встречается внутри многобайтовых последовательностей UTF-8
+    private static long countQuotes(FileChannel channel, long start, long end) {
+        MappedByteBuffer buffer = map(channel, start, end);
+        long count = 0;
+        while (buffer.hasRemaining()) {
+            if (buffer.get() == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Начало первой записи после позиции, находящейся внутри поля в кавычках
+    private static long nextRecordStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        boolean quoted = true;
+        long offset = position;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    // Позиция начала первой строки, которая начинается не раньше position
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long offset = position - 1;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static List<Task> parse(FileChannel channel, long start, long end, boolean skipHeader,
+                                    boolean quotedFields) {
+        List<Task> result = new ArrayList<>();
+        if (start >= end) {
+            return result;
+        }
+
+        MappedByteBuffer buffer = map(channel, start, end);
+
+        // Буфер записи переиспользуется, новые объекты - только строка и задача
+        byte[] line = new byte[256];
+        int length = 0;
+        boolean quoted = false;
+        boolean skip = skipHeader;
+        while (true) {
+            boolean atEnd = !buffer.hasRemaining();
+            byte b = atEnd ? (byte) '\n' : buffer.get();
+            if (b == '"' && quotedFields) {
+                quoted = !quoted;
+            }
+            if (b != '\n' || (quoted && !atEnd)) {
+                if (length == line.length) {
+                    byte[] grown = new byte[line.length * 2];
+                    System.arraycopy(line, 0, grown, 0, length);
+                    line = grown;
+                }
+                line[length++] = b;
+                continue;
+            }
+
+            if (skip) {
+                skip = false;
+            } else {
+                String value = new String(line, 0, length, StandardCharsets.UTF_8);
+                if (!value.isBlank()) {
+                    result.add(CSVTaskFormatter.fromString(value, 0, value.length(), quotedFields));
+                }
+            }
+            length = 0;
+
+            if (atEnd) {
+                return result;
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long end) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения участка файла: " + start + "-" + end, e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package manager;
+
+// Настройки хранения FileBackedTaskManager
+public class PersistenceConfig {
+    private PersistenceMode mode = PersistenceMode.SNAPSHOT;
+    // 0 - порог не используется
+    private long compactionJournalBytes;
+    private long compactionJournalRecords;
+    // Групповая запись: изменения копятся в течение окна или до заданного числа операций
+    private long groupCommitWindowMillis;
+    private int groupCommitMaxOps = 1;
+    private Durability durability = Durability.OS_BUFFERED;
+    // Число потоков разбора снимка при загрузке, 1 - последовательная загрузка
+    private int loadParallelism = 1;
+    private TaskSerializer serializer = new CSVTaskSerializer();
+    private TaskManagerMetrics metrics = new TaskManagerMetrics(false);
+
+    public static PersistenceConfig snapshot() {
+        return new PersistenceConfig();
+    }
+
+    public static PersistenceConfig journal() {
+        return new PersistenceConfig().mode(PersistenceMode.JOURNAL);
+    }
+
+    public PersistenceConfig mode(PersistenceMode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    // Уплотнение запускается, когда журнал превысит любой из порогов
+    public PersistenceConfig compactAfter(long journalBytes, long journalRecords) {
+        if (journalBytes < 0 || journalRecords < 0) {
+            throw new IllegalArgumentException("Пороги уплотнения не могут быть отрицательными");
+        }
+        this.compactionJournalBytes = journalBytes;
+        this.compactionJournalRecords = journalRecords;
+        return this;
+    }
+
+    public PersistenceConfig groupCommit(long windowMillis, int maxOps) {
+        if (windowMillis < 0 || maxOps < 1) {
+            throw new IllegalArgumentException("Некорректные параметры групповой записи");
+        }
+        this.groupCommitWindowMillis = windowMillis;
+        this.groupCommitMaxOps = maxOps;
+        return this;
+    }
+
+    public PersistenceConfig durability(Durability durability) {
+        this.durability = durability;
+        return this;
+    }
+
+    public PersistenceConfig parallelLoad(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Число потоков загрузки должно быть положительным");
+        }
+        this.loadParallelism = parallelism;
+        return this;
+    }
+
+    // Формат файла снимка; журнал всегда текстовый
+    public PersistenceConfig serializer(TaskSerializer serializer) {
+        this.serializer = serializer;
+        return this;
+    }
+
+    // Замеры сохранения снимка, сброса журнала и fsync, объем записанных данных
+    public PersistenceConfig metrics(TaskManagerMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public PersistenceMode getMode() {
+        return mode;
+    }
+
+    public long getCompactionJournalBytes() {
+        return compactionJournalBytes;
+    }
+
+    public long getCompactionJournalRecords() {
+        return compactionJournalRecords;
+    }
+
+    public long getGroupCommitWindowMillis() {
+        return groupCommitWindowMillis;
+    }
+
+    public int getGroupCommitMaxOps() {
+        return groupCommitMaxOps;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    public TaskSerializer getSerializer() {
+        return serializer;
+    }
+
+    public TaskManagerMetrics getMetrics() {
+        return metrics;
+    }
+
+    boolean isGroupCommit() {
+        return groupCommitWindowMillis > 0 || groupCommitMaxOps > 1;
+    }
+
+    boolean isFsync() {
+        return durability == Durability.FSYNC;
+    }
+
+    boolean isCompactionDue(long journalBytes, long journalRecords) {
+        return (compactionJournalBytes > 0 && journalBytes >= compactionJournalBytes)
+                || (compactionJournalRecords > 0 && journalRecords >= compactionJournalRecords);
+    }
+}
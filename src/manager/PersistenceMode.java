@@ -0,0 +1,6 @@
+package manager;
+
+public enum PersistenceMode {
+    SNAPSHOT,
+    JOURNAL
+}
@@ -0,0 +1,213 @@
+package manager;
+
+import tasks.Task;
+import tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Инвертированный индекс по названиям и описаниям задач.
+// Слова - последовательности букв и цифр любого алфавита, приводятся к нижнему регистру, "ё" считается "е".
+// Каждое слово запроса ищется как префикс (словарь отсортирован), слова запроса объединяются по И.
+// Результаты ранжируются по TF-IDF, совпадение в названии весит вдвое больше, чем в описании.
+// Индекс потокобезопасен без общей блокировки: словарь и список документов - конкурентные коллекции,
+// а список задач каждого слова меняется под собственным монитором, поэтому задачи с разными словами
+// индексируются параллельно. Изменения одной задачи (add/remove одного id) упорядочивает вызывающий
+class SearchIndex {
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // Слово -> задачи, в которых оно встречается
+    private final ConcurrentSkipListMap<String, Postings> dictionary = new ConcurrentSkipListMap<>();
+    // Проиндексированные задачи: нужны для удаления их слов из словаря
+    private final Map<Integer, Document> documents = new ConcurrentHashMap<>();
+    // id проиндексированных задач по видам: очистка вида не перебирает задачи других видов
+    private final Map<TaskType, Set<Integer>> idsByType = new EnumMap<>(TaskType.class);
+
+    // Слова одной задачи с весами; строится независимо от индекса, поэтому может строиться параллельно
+    static class Document {
+        final int id;
+        final TaskType type;
+        final Map<String, Integer> weights = new HashMap<>();
+
+        Document(Task task) {
+            this.id = task.getId();
+            this.type = task.getType();
+            for (String term : tokenize(task.getName())) {
+                weights.merge(term, NAME_WEIGHT, Integer::sum);
+            }
+            for (String term : tokenize(task.getDescription())) {
+                weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+            }
+        }
+    }
+
+    // id задачи -> вес слова в задаче; читается и меняется под монитором самого списка.
+    // Опустевший список убирается из словаря и помечается removed: запись в него уходит в новый список
+    private static class Postings {
+        final Map<Integer, Integer> weights = new HashMap<>();
+        boolean removed;
+    }
+
+    SearchIndex() {
+        for (TaskType type : TaskType.values()) {
+            idsByType.put(type, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    void put(Task task) {
+        add(new Document(task));
+    }
+
+    void add(Document document) {
+        Document previous = documents.put(document.id, document);
+        if (previous != null) {
+            removeTerms(previous);
+        }
+        idsByType.get(document.type).add(document.id);
+        for (Map.Entry<String, Integer> entry : document.weights.entrySet()) {
+            addPosting(entry.getKey(), document.id, entry.getValue());
+        }
+    }
+
+    void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        idsByType.get(document.type).remove(id);
+        removeTerms(document);
+    }
+
+    void clear(TaskType type) {
+        for (int id : idsByType.get(type)) {
+            remove(id);
+        }
+    }
+
+    private void addPosting(String term, int id, int weight) {
+        while (true) {
+            Postings postings = dictionary.computeIfAbsent(term, key -> new Postings());
+            synchronized (postings) {
+                if (!postings.removed) {
+                    postings.weights.put(id, weight);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void removeTerms(Document document) {
+        for (String term : document.weights.keySet()) {
+            Postings postings = dictionary.get(term);
+            if (postings == null) {
+                continue;
+            }
+            synchronized (postings) {
+                postings.weights.remove(document.id);
+                if (postings.weights.isEmpty()) {
+                    postings.removed = true;
+                    dictionary.remove(term, postings);
+                }
+            }
+        }
+    }
+
+    // id найденных задач, от наиболее подходящих
+    List<Integer> search(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Double> scores = null;
+        for (String term : terms) {
+            Map<Integer, Double> termScores = score(term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                // И: остаются только задачи, найденные по всем словам
+                Map<Integer, Double> previous = scores;
+                termScores.keySet().retainAll(previous.keySet());
+                termScores.replaceAll((id, score) -> score + previous.get(id));
+                scores = termScores;
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<Integer> ids = new ArrayList<>(ranked.size());
+        for (Map.Entry<Integer, Double> entry : ranked) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    // Сумма TF-IDF по всем словам словаря, начинающимся с term
+    private Map<Integer, Double> score(String term) {
+        Map<Integer, Double> scores = new HashMap<>();
+        double total = documents.size();
+        for (Postings postings : dictionary.subMap(term, term + Character.MAX_VALUE).values()) {
+            synchronized (postings) {
+                if (postings.weights.isEmpty()) {
+                    continue;
+                }
+                double idf = Math.log(1 + total / postings.weights.size());
+                for (Map.Entry<Integer, Integer> posting : postings.weights.entrySet()) {
+                    scores.merge(posting.getKey(), posting.getValue() * idf, Double::sum);
+                }
+            }
+        }
+        return scores;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(normalize(text.substring(start, i)));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static String normalize(String word) {
+        return word.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    // Поиск без постоянного индекса: для реализаций TaskManager, которые его не поддерживают
+    static List<Task> search(Collection<? extends Task> tasks, String query) {
+        SearchIndex index = new SearchIndex();
+        Map<Integer, Task> byId = new HashMap<>();
+        for (Task task : tasks) {
+            index.put(task);
+            byId.put(task.getId(), task);
+        }
+
+        List<Task> result = new ArrayList<>();
+        for (int id : index.search(query)) {
+            result.add(byId.get(id));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+package manager;
+
+import tasks.Status;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Вторичный индекс задач по типу и статусу: выборка стоит O(размера результата).
+// Для каждой пары тип/статус - отдельное хранилище по id; задача лежит ровно в одном из них.
+class StatusIndex {
+    private static final Status[] STATUSES = Status.values();
+
+    private final List<TaskStorage<Task>> storages = new ArrayList<>();
+
+    StatusIndex() {
+        for (int i = 0; i < TaskType.values().length * STATUSES.length; i++) {
+            storages.add(new IntTaskStorage<>());
+        }
+    }
+
+    // Добавляет задачу или переносит ее под текущий статус
+    void put(Task task) {
+        remove(task.getType(), task.getId());
+        storage(task.getType(), task.getStatus()).put(task.getId(), task);
+    }
+
+    void remove(TaskType type, int id) {
+        for (Status status : STATUSES) {
+            if (storage(type, status).remove(id) != null) {
+                return;
+            }
+        }
+    }
+
+    void clear(TaskType type) {
+        for (Status status : STATUSES) {
+            storage(type, status).clear();
+        }
+    }
+
+    // Все задачи вида оказываются под одним статусом - без поиска прежнего статуса каждой
+    void putAll(TaskType type, Status status, Collection<? extends Task> tasks) {
+        clear(type);
+        TaskStorage<Task> storage = storage(type, status);
+        for (Task task : tasks) {
+            storage.put(task.getId(), task);
+        }
+    }
+
+    List<Task> get(TaskType type, Status status) {
+        return new ArrayList<>(storage(type, status).values());
+    }
+
+    private TaskStorage<Task> storage(TaskType type, Status status) {
+        return storages.get(type.ordinal() * STATUSES.length + status.ordinal());
+    }
+}
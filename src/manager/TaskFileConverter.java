@@ -0,0 +1,45 @@
+package manager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+// Перекодирует файл снимка из одного формата в другой, задачи не собираются в памяти
+public class TaskFileConverter {
+
+    public static void convert(File source, TaskSerializer from, File target, TaskSerializer to) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source.toPath()));
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(target.toPath()))) {
+            from.read(in, nextId -> {
+                try {
+                    to.writeHeader(out, nextId);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, task -> {
+                try {
+                    to.write(task, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка преобразования файла: " + source.getAbsolutePath(), e);
+        } catch (UncheckedIOException e) {
+            throw new ManagerSaveException("Ошибка преобразования файла: " + source.getAbsolutePath(), e.getCause());
+        }
+    }
+
+    public static void csvToBinary(File source, File target) {
+        convert(source, new CSVTaskSerializer(), target, new BinaryTaskSerializer());
+    }
+
+    public static void binaryToCsv(File source, File target) {
+        convert(source, new BinaryTaskSerializer(), target, new CSVTaskSerializer());
+    }
+}
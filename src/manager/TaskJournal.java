@@ -0,0 +1,320 @@
+package manager;
+
+import tasks.Task;
+import tasks.TaskType;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Журнал изменений: одна строка на операцию, дописывается в конец файла.
+// При уплотнении активный журнал переименовывается в "запечатанный" и сливается со снимком в фоне.
+// Записи копятся в буфере и уходят в файл одной операцией при flush (групповая запись).
+// Методы синхронизированы: flush может вызываться фоновым потоком.
+class TaskJournal {
+
+    enum Operation {
+        PUT,
+        DELETE,
+        CLEAR,
+        // Заголовок пакета с числом следующих за ним записей
+        BATCH
+    }
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final File file;
+    private final File sealedFile;
+    private final boolean fsync;
+    private final TaskManagerMetrics metrics;
+    private final LatencyHistogram flushLatency;
+    private final LatencyHistogram fsyncLatency;
+
+    private FileChannel channel;
+    private byte[] pending = new byte[4096];
+    private int pendingLength;
+    private int pendingRecords;
+
+    // Размер активного журнала, используется для порогов уплотнения
+    private long records;
+    private long bytes;
+
+    TaskJournal(File snapshotFile, boolean fsync, TaskManagerMetrics metrics) {
+        this.file = new File(snapshotFile.getPath() + ".journal");
+        this.sealedFile = new File(file.getPath() + ".old");
+        this.fsync = fsync;
+        this.metrics = metrics;
+        this.flushLatency = metrics.histogram(TaskManagerMetrics.JOURNAL_FLUSH);
+        this.fsyncLatency = metrics.histogram(TaskManagerMetrics.FSYNC);
+    }
+
+    static String put(Task task) {
+        return Operation.PUT + "," + CSVTaskFormatter.toString(task);
+    }
+
+    static String delete(TaskType type, int id) {
+        return Operation.DELETE + "," + type + "," + id;
+    }
+
+    static String clear(TaskType type) {
+        return Operation.CLEAR + "," + type;
+    }
+
+    static String batch(int records) {
+        return Operation.BATCH + "," + records;
+    }
+
+    // Разбор записей при восстановлении: операции передаются наследнику по одной.
+    // Пакет, не дописанный до конца журнала (например, при сбое), отбрасывается целиком
+    abstract static class Replay implements Consumer<String> {
+        private List<String> batch;
+        private int batchSize;
+
+        @Override
+        public void accept(String record) {
+            if (batch != null) {
+                batch.add(record);
+                if (batch.size() == batchSize) {
+                    List<String> records = batch;
+                    batch = null;
+                    for (String batched : records) {
+                        accept(batched);
+                    }
+                }
+                return;
+            }
+
+            int operationEnd = record.indexOf(',');
+            switch (Operation.valueOf(record.substring(0, operationEnd))) {
+                case BATCH:
+                    batchSize = Integer.parseInt(record, operationEnd + 1, record.length(), 10);
+                    batch = new ArrayList<>(batchSize);
+                    break;
+                case PUT:
+                    put(CSVTaskFormatter.fromString(record.substring(operationEnd + 1)));
+                    break;
+                case DELETE:
+                    int typeEnd = record.indexOf(',', operationEnd + 1);
+                    delete(TaskType.valueOf(record.substring(operationEnd + 1, typeEnd)),
+                            Integer.parseInt(record, typeEnd + 1, record.length(), 10));
+                    break;
+                case CLEAR:
+                    clear(TaskType.valueOf(record.substring(operationEnd + 1)));
+                    break;
+            }
+        }
+
+        abstract void put(Task task);
+
+        abstract void delete(TaskType type, int id);
+
+        abstract void clear(TaskType type);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    File getSealedFile() {
+        return sealedFile;
+    }
+
+    synchronized int getPendingRecords() {
+        return pendingRecords;
+    }
+
+    synchronized long getRecords() {
+        return records;
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    synchronized boolean exists() {
+        return pendingRecords > 0 || file.exists() || sealedFile.exists();
+    }
+
+    boolean hasSealed() {
+        return sealedFile.exists();
+    }
+
+    synchronized void append(String record) {
+        byte[] data = record.getBytes(StandardCharsets.UTF_8);
+        int length = data.length + LINE_SEPARATOR.length;
+        if (pendingLength + length > pending.length) {
+            byte[] grown = new byte[Math.max(pending.length * 2, pendingLength + length)];
+            System.arraycopy(pending, 0, grown, 0, pendingLength);
+            pending = grown;
+        }
+        System.arraycopy(data, 0, pending, pendingLength, data.length);
+        System.arraycopy(LINE_SEPARATOR, 0, pending, pendingLength + data.length, LINE_SEPARATOR.length);
+        pendingLength += length;
+        pendingRecords++;
+        records++;
+        bytes += length;
+    }
+
+    // Вся накопленная пачка уходит в файл одной записью; при ошибке записи буфер сохраняется,
+    // а уже записанная часть пачки откатывается, чтобы повторный flush не продублировал ее
+    synchronized void flush() {
+        if (pendingRecords == 0) {
+            return;
+        }
+
+        long start = metrics.start();
+        long size = -1;
+        int written = 0;
+        try {
+            if (channel == null) {
+                channel = openChannel();
+            }
+            size = channel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(pending, 0, pendingLength);
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            if (fsync) {
+                long fsyncStart = metrics.start();
+                channel.force(false);
+                metrics.stop(fsyncLatency, fsyncStart);
+            }
+        } catch (IOException e) {
+            if (size >= 0) {
+                rollBack(size, written);
+            }
+            throw new ManagerSaveException("Ошибка записи в журнал: " + file.getAbsolutePath(), e);
+        }
+        metrics.addPersistedBytes(pendingLength);
+        metrics.stop(flushLatency, start);
+        pendingLength = 0;
+        pendingRecords = 0;
+    }
+
+    synchronized void close() {
+        flush();
+        closeChannel();
+    }
+
+    FileChannel openChannel() throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Файл обрезается до размера перед записью. Если и это не удалось, из буфера убирается
+    // записанная часть: повторный flush допишет пачку с места обрыва
+    private void rollBack(long size, int written) {
+        try {
+            channel.truncate(size);
+        } catch (IOException e) {
+            System.arraycopy(pending, written, pending, 0, pendingLength - written);
+            pendingLength -= written;
+        }
+    }
+
+    // Сначала запечатанная часть (если уплотнение не успело завершиться), затем активная
+    synchronized void replay(Consumer<String> consumer) {
+        replaySealed(consumer);
+        records = replay(file, consumer);
+        bytes = file.length();
+    }
+
+    void replaySealed(Consumer<String> consumer) {
+        replay(sealedFile, consumer);
+    }
+
+    // Активный журнал становится запечатанным, новые записи пойдут в пустой файл
+    synchronized void seal() {
+        flush();
+        if (sealedFile.exists() || !file.exists()) {
+            return;
+        }
+
+        closeChannel();
+        try {
+            Files.move(file.toPath(), sealedFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка ротации журнала: " + file.getAbsolutePath(), e);
+        }
+        records = 0;
+        bytes = 0;
+    }
+
+    void deleteSealed() {
+        try {
+            Files.deleteIfExists(sealedFile.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка удаления журнала: " + sealedFile.getAbsolutePath(), e);
+        }
+    }
+
+    // Вызывается после записи полного снимка: накопленные записи в нем уже учтены
+    synchronized void truncate() {
+        pendingLength = 0;
+        pendingRecords = 0;
+        closeChannel();
+        try {
+            Files.deleteIfExists(file.toPath());
+            Files.deleteIfExists(sealedFile.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка очистки журнала: " + file.getAbsolutePath(), e);
+        }
+        records = 0;
+        bytes = 0;
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия журнала: " + file.getAbsolutePath(), e);
+        } finally {
+            channel = null;
+        }
+    }
+
+    // Строка, в которой кавычки не сходятся, - запись журнала до экранирования полей:
+    // поля задачи берутся как есть и записываются заново в текущем формате
+    private static String upgrade(String record) {
+        String prefix = Operation.PUT + ",";
+        if (!record.startsWith(prefix)) {
+            return record;
+        }
+        return put(CSVTaskFormatter.fromString(record, prefix.length(), record.length(), false));
+    }
+
+    private static long replay(File source, Consumer<String> consumer) {
+        if (!source.exists()) {
+            return 0;
+        }
+
+        long count = 0;
+        // Запись может занимать несколько строк, если название или описание содержит перевод строки
+        try (BufferedReader reader = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8)) {
+            CSVRecordReader records = new CSVRecordReader(reader);
+            CharSequence record;
+            while ((record = records.next()) != null) {
+                if (!CSVRecordReader.isBlank(record)) {
+                    consumer.accept(records.isPlainLine() ? upgrade(record.toString()) : record.toString());
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения журнала: " + source.getAbsolutePath(), e);
+        }
+        return count;
+    }
+}
@@ -1,24 +1,132 @@
 package manager;
 
 import tasks.Epic;
+import tasks.Status;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskSnapshot;
+import tasks.TaskType;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-public interface TaskManager {
+public interface TaskManager extends BatchOps {
     void addTask(Task task);
 
     void addEpic(Epic epic);
 
     void addSubtask(Subtask subtask);
 
+    // getAll* возвращают копию на момент вызова
     List<Task> getAllTasks();
 
     List<Epic> getAllEpics();
 
     List<Subtask> getAllSubtasks();
 
+    // Живые представления только для чтения, без копирования; отражают последующие изменения
+    Collection<Task> getTasksView();
+
+    Collection<Epic> getEpicsView();
+
+    Collection<Subtask> getSubtasksView();
+
+    // Страница из не более чем limit элементов, начиная с offset, в порядке обхода представления
+    default List<Task> getAllTasks(int offset, int limit) {
+        return page(getTasksView(), offset, limit);
+    }
+
+    default List<Epic> getAllEpics(int offset, int limit) {
+        return page(getEpicsView(), offset, limit);
+    }
+
+    default List<Subtask> getAllSubtasks(int offset, int limit) {
+        return page(getSubtasksView(), offset, limit);
+    }
+
+    // Задачи заданного типа с заданным статусом
+    default List<Task> getTasksByStatus(Status status, TaskType type) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : view(type)) {
+            if (task.getStatus() == status) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    // Поиск по словам в названии и описании: каждое слово запроса - префикс, все слова обязательны.
+    // Результаты упорядочены от наиболее подходящих
+    default List<Task> search(String query) {
+        List<Task> all = new ArrayList<>(getTasksView());
+        all.addAll(getEpicsView());
+        all.addAll(getSubtasksView());
+        return SearchIndex.search(all, query);
+    }
+
+    // Неизменяемый снимок задачи любого вида или null; просмотр не попадает в историю
+    default TaskSnapshot getSnapshot(int id) {
+        for (TaskType type : TaskType.values()) {
+            for (Task task : view(type)) {
+                if (task.getId() == id) {
+                    return task.snapshot();
+                }
+            }
+        }
+        return null;
+    }
+
+    default List<TaskSnapshot> getSnapshots(TaskType type) {
+        Collection<? extends Task> view = view(type);
+        List<TaskSnapshot> result = new ArrayList<>(view.size());
+        for (Task task : view) {
+            result.add(task.snapshot());
+        }
+        return result;
+    }
+
+    // Согласованное состояние всей доски. Реализация по умолчанию собирает его обходом за O(n)
+    // и при параллельных изменениях согласованности не гарантирует
+    default BoardSnapshot snapshot() {
+        return BoardSnapshot.of(getTasksView(), getEpicsView(), getSubtasksView());
+    }
+
+    default Stream<Task> streamTasks() {
+        return getTasksView().stream();
+    }
+
+    default Stream<Epic> streamEpics() {
+        return getEpicsView().stream();
+    }
+
+    default Stream<Subtask> streamSubtasks() {
+        return getSubtasksView().stream();
+    }
+
+    // Задачи и подзадачи со временем начала, по возрастанию начала (при равном начале - по id); эпики
+    // не входят, их время выводится из подзадач. Реализация по умолчанию сортирует все задачи при каждом вызове,
+    // InMemoryTaskManager и ConcurrentTaskManager ведут упорядоченный индекс
+    default List<Task> getPrioritizedTasks() {
+        List<Task> result = new ArrayList<>();
+        for (Task task : getTasksView()) {
+            if (task.getStartTime() != null) {
+                result.add(task);
+            }
+        }
+        for (Subtask subtask : getSubtasksView()) {
+            if (subtask.getStartTime() != null) {
+                result.add(subtask);
+            }
+        }
+        result.sort(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId));
+        return result;
+    }
+
     List<Subtask> getSubtasksByEpicId(int epicId);
 
     Task getTaskById(int id);
@@ -46,4 +154,39 @@ public interface TaskManager {
     void clearSubtasks();
 
     List<Task> getHistory();
-}
\ No newline at end of file
+
+    // Применяет набор изменений одной операцией. Реализация по умолчанию НЕ атомарна: выполняет изменения
+    // сразу и по одному, и исключение оставляет уже сделанные. InMemoryTaskManager с наследниками
+    // и ConcurrentTaskManager проверяют пакет целиком и применяют его только после operations
+    default void batch(Consumer<BatchOps> operations) {
+        operations.accept(this);
+    }
+
+    private static <T extends Task> List<T> page(Collection<T> view, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Смещение и размер страницы не могут быть отрицательными");
+        }
+        List<T> result = new ArrayList<>(Math.min(limit, Math.max(0, view.size() - offset)));
+        Iterator<T> iterator = view.iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    private Collection<? extends Task> view(TaskType type) {
+        switch (type) {
+            case TASK:
+                return getTasksView();
+            case EPIC:
+                return getEpicsView();
+            case SUBTASK:
+                return getSubtasksView();
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package manager;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Метрики менеджера задач: гистограммы задержек по операциям, размеры доски и объем записи на диск.
+// Операции замеряет InstrumentedTaskManager, этапы сохранения - FileBackedTaskManager с этим объектом
+// в PersistenceConfig.metrics. Выключенные метрики не вызывают System.nanoTime и ничего не пишут:
+// остается одно чтение volatile-флага на операцию. Размеры доски считаются при чтении, а не при записи.
+public class TaskManagerMetrics implements TaskManagerMetricsMXBean {
+    static final String SAVE = "save";
+    static final String JOURNAL_FLUSH = "journalFlush";
+    static final String FSYNC = "fsync";
+
+    // Метка начала замера при выключенных метриках: stop ее пропускает
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final LongAdder persistedBytes = new LongAdder();
+    private volatile boolean enabled;
+    // Менеджер, размеры которого показываются; null - размеры не отслеживаются
+    private volatile TaskManager observed;
+    private ObjectName objectName;
+
+    public TaskManagerMetrics() {
+        this(true);
+    }
+
+    public TaskManagerMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<String, OperationStats> operations = new HashMap<>();
+        for (LatencyHistogram histogram : histograms.values()) {
+            operations.put(histogram.getName(), histogram.stats());
+        }
+        return new MetricsSnapshot(operations, getTaskCount(), getEpicCount(), getSubtaskCount(),
+                getPersistedBytes());
+    }
+
+    // Размеры читаются из представлений без блокировок: для менеджера, изменяемого из другого потока,
+    // значение может немного отставать
+    @Override
+    public int getTaskCount() {
+        TaskManager manager = observed;
+        return manager == null ? 0 : manager.getTasksView().size();
+    }
+
+    @Override
+    public int getEpicCount() {
+        TaskManager manager = observed;
+        return manager == null ? 0 : manager.getEpicsView().size();
+    }
+
+    @Override
+    public int getSubtaskCount() {
+        TaskManager manager = observed;
+        return manager == null ? 0 : manager.getSubtasksView().size();
+    }
+
+    @Override
+    public long getPersistedBytes() {
+        return persistedBytes.sum();
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        return new ArrayList<>(snapshot().getOperations().values());
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        persistedBytes.reset();
+    }
+
+    // Регистрация в платформенном MBeanServer под именем manager:type=TaskManagerMetrics,name=<name>
+    public synchronized void register(String name) {
+        if (objectName != null) {
+            throw new IllegalStateException("Метрики уже зарегистрированы: " + objectName);
+        }
+
+        try {
+            ObjectName candidate = new ObjectName("manager:type=TaskManagerMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidate);
+            objectName = candidate;
+        } catch (JMException e) {
+            throw new IllegalStateException("Ошибка регистрации метрик в JMX: " + name, e);
+        }
+    }
+
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Ошибка отмены регистрации метрик в JMX: " + objectName, e);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    void observe(TaskManager manager) {
+        this.observed = manager;
+    }
+
+    // Гистограммы создаются один раз, замеряющий код хранит ссылку и не ищет ее при каждом вызове
+    LatencyHistogram histogram(String operation) {
+        return histograms.computeIfAbsent(operation, LatencyHistogram::new);
+    }
+
+    long start() {
+        return enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    void stop(LatencyHistogram histogram, long start) {
+        if (start != NOT_STARTED) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    void addPersistedBytes(long bytes) {
+        if (enabled) {
+            persistedBytes.add(bytes);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package manager;
+
+import java.util.List;
+
+// Атрибуты метрик менеджера для JMX (jconsole, VisualVM): регистрируются через TaskManagerMetrics.register
+public interface TaskManagerMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    int getTaskCount();
+
+    int getEpicCount();
+
+    int getSubtaskCount();
+
+    long getPersistedBytes();
+
+    List<OperationStats> getOperations();
+
+    void reset();
+}
@@ -0,0 +1,19 @@
+package manager;
+
+import tasks.Task;
+
+// Задача пересекается по времени с уже запланированной; менеджер при этом ничего не меняет
+public class TaskOverlapException extends RuntimeException {
+    private final int conflictingId;
+
+    public TaskOverlapException(Task task, Task conflict) {
+        super("Задача \"" + task.getName() + "\" (" + task.getStartTime() + " - " + task.getEndTime()
+                + ") пересекается по времени с задачей " + conflict.getId()
+                + " (" + conflict.getStartTime() + " - " + conflict.getEndTime() + ")");
+        this.conflictingId = conflict.getId();
+    }
+
+    public int getConflictingId() {
+        return conflictingId;
+    }
+}
@@ -0,0 +1,21 @@
+package manager;
+
+import tasks.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// Формат файла снимка: заголовок и последовательность задач в порядке записи.
+// В заголовке хранится следующий id менеджера, чтобы после загрузки не выдавались id удаленных задач
+public interface TaskSerializer {
+    void writeHeader(OutputStream out, int nextId) throws IOException;
+
+    void write(Task task, OutputStream out) throws IOException;
+
+    // Читает файл целиком: сначала один раз передает следующий id из заголовка (0 - в снимке его нет),
+    // затем задачи по одной в порядке записи
+    void read(InputStream in, IntConsumer nextId, Consumer<Task> consumer) throws IOException;
+}
@@ -0,0 +1,24 @@
+package manager;
+
+import tasks.Task;
+
+import java.util.Collection;
+
+// Хранилище задач одного вида по id
+public interface TaskStorage<T extends Task> {
+    T get(int id);
+
+    // Возвращает прежнюю задачу с тем же id или null
+    T put(int id, T task);
+
+    T remove(int id);
+
+    boolean containsKey(int id);
+
+    int size();
+
+    void clear();
+
+    // Представление только для чтения
+    Collection<T> values();
+}
@@ -0,0 +1,21 @@
+package manager;
+
+import tasks.Task;
+
+public enum TaskStorageType {
+    // HashMap<Integer, Task>: прежний вариант
+    HASH_MAP,
+    // Открытая адресация по int без упаковки id
+    INT_MAP;
+
+    <T extends Task> TaskStorage<T> create() {
+        switch (this) {
+            case HASH_MAP:
+                return new HashTaskStorage<>();
+            case INT_MAP:
+                return new IntTaskStorage<>();
+            default:
+                throw new IllegalStateException("Неизвестный тип хранилища: " + this);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package manager;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskSnapshot;
+import tasks.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+// Расписание: задачи и подзадачи со временем начала, упорядоченные по (начало, id).
+// Декартово дерево (treap), в каждом узле - самый поздний конец задач поддерева (дерево интервалов):
+// вставка, удаление и поиск пересечения - O(log n) в среднем, без перебора всех задач.
+// Интервал задачи полуоткрытый [начало, конец): задача, которая начинается в момент окончания другой,
+// с ней не пересекается. Границы запоминаются при вставке, поэтому задачу в индексе
+// меняют только через put и remove, а не прямой правкой полей.
+class TimeIndex {
+    private static class Node {
+        final Task task;
+        final int id;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final int priority;
+        Node left;
+        Node right;
+        LocalDateTime maxEnd;
+
+        Node(Task task) {
+            this.task = task;
+            this.id = task.getId();
+            this.start = task.getStartTime();
+            this.end = task.getEndTime();
+            this.priority = ThreadLocalRandom.current().nextInt();
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    // Узел по id: прежнюю версию задачи находим без обхода дерева
+    private final Map<Integer, Node> nodes = new HashMap<>();
+
+    // Добавляет задачу или заменяет прежнюю версию с тем же id, если новая ни с чем не пересекается.
+    // Возвращает задачу, с которой нашлось пересечение; тогда индекс не меняется.
+    // Задача без времени начала только убирается из индекса
+    Task tryPut(Task task) {
+        Node old = nodes.get(task.getId());
+        if (old != null) {
+            root = delete(root, old);
+        }
+        if (task.getStartTime() != null) {
+            Node conflict = find(root, task.getStartTime(), task.getEndTime(), Collections.emptySet());
+            if (conflict != null) {
+                if (old != null) {
+                    root = insert(root, old);
+                }
+                return conflict.task;
+            }
+        }
+        nodes.remove(task.getId());
+        add(task);
+        return null;
+    }
+
+    // Без проверки пересечений, например при восстановлении из файла
+    void put(Task task) {
+        remove(task.getId());
+        add(task);
+    }
+
+    void remove(int id) {
+        Node node = nodes.remove(id);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    void clear(TaskType type) {
+        List<Integer> removed = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            if (node.task.getType() == type) {
+                removed.add(node.id);
+            }
+        }
+        for (int id : removed) {
+            remove(id);
+        }
+    }
+
+    void clear() {
+        root = null;
+        nodes.clear();
+    }
+
+    // Первая по времени задача, пересекающая [start, end), кроме задач с id из ignored, или null
+    Task findOverlap(LocalDateTime start, LocalDateTime end, Set<Integer> ignored) {
+        Node node = find(root, start, end, ignored);
+        return node == null ? null : node.task;
+    }
+
+    // Задачи по возрастанию времени начала, при равном начале - по id
+    List<Task> values() {
+        List<Task> result = new ArrayList<>(nodes.size());
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        while (node != null || !path.isEmpty()) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+            node = path.pop();
+            result.add(node.task);
+            node = node.right;
+        }
+        return result;
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    // Время эпика по его подзадачам за O(числа подзадач): начало - самое раннее начало,
+    // продолжительность - сумма продолжительностей, конец - самый поздний конец
+    static void updateEpicTime(Epic epic, IntFunction<Subtask> subtasks) {
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        Duration duration = null;
+        for (int id : epic.getSubtaskIds()) {
+            Subtask subtask = subtasks.apply(id);
+            if (subtask.getStartTime() != null) {
+                if (start == null || subtask.getStartTime().isBefore(start)) {
+                    start = subtask.getStartTime();
+                }
+                if (end == null || subtask.getEndTime().isAfter(end)) {
+                    end = subtask.getEndTime();
+                }
+            }
+            if (subtask.getDuration() != null) {
+                duration = duration == null ? subtask.getDuration() : duration.plus(subtask.getDuration());
+            }
+        }
+        epic.setTime(start, duration, end);
+    }
+
+    // Нужно ли пересчитать время эпика после обновления подзадачи. Прежнее время берется из опубликованного
+    // снимка, а не из хранимого объекта: его могли изменить на месте перед вызовом update
+    static boolean timeChanged(TaskSnapshot previous, Task task) {
+        return previous == null || !Objects.equals(previous.getStartTime(), task.getStartTime())
+                || !Objects.equals(previous.getDuration(), task.getDuration());
+    }
+
+    private void add(Task task) {
+        if (task.getStartTime() == null) {
+            return;
+        }
+        Node node = new Node(task);
+        nodes.put(node.id, node);
+        root = insert(root, node);
+    }
+
+    // Поддерево, где ни одна задача не заканчивается позже start, пропускается целиком, а обход вправо
+    // прекращается на первой задаче, начинающейся не раньше end. Пока задачи в индексе не пересекаются,
+    // концы растут вместе с началами, и поиск идет по одному пути от корня
+    private static Node find(Node node, LocalDateTime start, LocalDateTime end, Set<Integer> ignored) {
+        while (node != null && node.maxEnd.isAfter(start)) {
+            Node found = find(node.left, start, end, ignored);
+            if (found != null) {
+                return found;
+            }
+            if (!node.start.isBefore(end)) {
+                return null;
+            }
+            if (node.end.isAfter(start) && !ignored.contains(node.id)) {
+                return node;
+            }
+            node = node.right;
+        }
+        return null;
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            added.left = null;
+            added.right = null;
+            update(added);
+            return added;
+        }
+        if (compare(added, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node delete(Node node, Node removed) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(removed, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, removed);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, removed);
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    // Все задачи left меньше задач right
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        update(node);
+        left.right = node;
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        update(node);
+        right.left = node;
+        return right;
+    }
+
+    private static void update(Node node) {
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int compare(Node a, Node b) {
+        int cmp = a.start.compareTo(b.start);
+        return cmp != 0 ? cmp : Integer.compare(a.id, b.id);
+    }
+}
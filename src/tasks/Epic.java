@@ -1,20 +1,114 @@
 package tasks;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 
 public class Epic extends Task {
-    private ArrayList<Integer> subtaskIds = new ArrayList<>();
+    // id подзадач вместе со статусом, учтенным в счетчиках: по нему считается разница при изменении
+    private final SubtaskSet subtasks = new SubtaskSet();
+    private final int[] statusCounts = new int[Status.values().length];
+    // Время эпика вычисляет менеджер по подзадачам: начало - самое раннее начало, продолжительность - сумма
+    // продолжительностей, конец - самый поздний конец. Из-за промежутков между подзадачами конец может быть
+    // позже, чем начало плюс продолжительность
+    private LocalDateTime endTime;
 
     public Epic(String name, String description) {
         super(name, description);
     }
 
-    public ArrayList<Integer> getSubtaskIds() {
-        return subtaskIds;
+    // Только для чтения, в порядке добавления; меняется через методы эпика
+    public List<Integer> getSubtaskIds() {
+        return subtasks.view();
+    }
+
+    public boolean containsSubtask(int subtaskId) {
+        return subtasks.contains(subtaskId);
+    }
+
+    // Повторное добавление той же подзадачи только обновляет ее статус
+    public void addSubtask(int subtaskId, Status status) {
+        Status oldStatus = subtasks.put(subtaskId, status);
+        if (oldStatus != null) {
+            statusCounts[oldStatus.ordinal()]--;
+        }
+        statusCounts[status.ordinal()]++;
+        invalidateSnapshot();
+    }
+
+    // Подзадачи, не принадлежащие эпику, игнорируются
+    public void updateSubtaskStatus(int subtaskId, Status status) {
+        Status oldStatus = subtasks.status(subtaskId);
+        if (oldStatus == null || oldStatus == status) {
+            return;
+        }
+        subtasks.put(subtaskId, status);
+        statusCounts[oldStatus.ordinal()]--;
+        statusCounts[status.ordinal()]++;
+    }
+
+    public void removeSubtask(int subtaskId) {
+        Status oldStatus = subtasks.remove(subtaskId);
+        if (oldStatus != null) {
+            statusCounts[oldStatus.ordinal()]--;
+            invalidateSnapshot();
+        }
+    }
+
+    // Переносит подзадачи вместе с учтенными статусами, например из прежней версии эпика
+    public void addSubtasks(Epic other) {
+        for (int subtaskId : other.getSubtaskIds()) {
+            addSubtask(subtaskId, other.subtasks.status(subtaskId));
+        }
+    }
+
+    public void clearSubtasks() {
+        subtasks.clear();
+        Arrays.fill(statusCounts, 0);
+        invalidateSnapshot();
+    }
+
+    public void setTime(LocalDateTime startTime, Duration duration, LocalDateTime endTime) {
+        this.startTime = startTime;
+        this.duration = duration;
+        this.endTime = endTime;
+        invalidateSnapshot();
+    }
+
+    @Override
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public int getSubtaskCount(Status status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    // Статус по счетчикам, за O(1)
+    public Status calculateStatus() {
+        int total = subtasks.size();
+        if (total == 0 || statusCounts[Status.NEW.ordinal()] == total) {
+            return Status.NEW;
+        }
+        if (statusCounts[Status.DONE.ordinal()] == total) {
+            return Status.DONE;
+        }
+        return Status.IN_PROGRESS;
+    }
+
+    @Override
+    public EpicSnapshot snapshot() {
+        return (EpicSnapshot) super.snapshot();
+    }
+
+    @Override
+    protected EpicSnapshot createSnapshot() {
+        return new EpicSnapshot(id, name, description, status, startTime, duration, endTime, subtasks.freeze());
     }
 
     @Override
     public TaskType getType() {
         return TaskType.EPIC;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package tasks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+// Подзадачи и время эпика ведет менеджер, поэтому через with* они не меняются,
+// а все версии снимка разделяют один неизменяемый список подзадач
+public class EpicSnapshot extends TaskSnapshot {
+    private final LocalDateTime endTime;
+    private final List<Integer> subtaskIds;
+
+    EpicSnapshot(int id, String name, String description, Status status,
+                 LocalDateTime startTime, Duration duration, LocalDateTime endTime, List<Integer> subtaskIds) {
+        super(id, name, description, status, startTime, duration);
+        this.endTime = endTime;
+        this.subtaskIds = subtaskIds;
+    }
+
+    // Самый поздний конец подзадач, как Epic.getEndTime()
+    @Override
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    // Неизменяемый, в порядке добавления подзадач
+    public List<Integer> getSubtaskIds() {
+        return subtaskIds;
+    }
+
+    @Override
+    public TaskType getType() {
+        return TaskType.EPIC;
+    }
+
+    @Override
+    public EpicSnapshot withName(String name) {
+        return (EpicSnapshot) super.withName(name);
+    }
+
+    @Override
+    public EpicSnapshot withDescription(String description) {
+        return (EpicSnapshot) super.withDescription(description);
+    }
+
+    @Override
+    public EpicSnapshot withStatus(Status status) {
+        return (EpicSnapshot) super.withStatus(status);
+    }
+
+    @Override
+    public EpicSnapshot withStartTime(LocalDateTime startTime) {
+        return (EpicSnapshot) super.withStartTime(startTime);
+    }
+
+    @Override
+    public EpicSnapshot withDuration(Duration duration) {
+        return (EpicSnapshot) super.withDuration(duration);
+    }
+
+    @Override
+    EpicSnapshot copy(String name, String description, Status status, LocalDateTime startTime, Duration duration) {
+        return new EpicSnapshot(getId(), name, description, status, startTime, duration, endTime, subtaskIds);
+    }
+
+    // Подзадачи и время не переносятся: при updateEpic менеджер сохраняет подзадачи прежней версии эпика
+    // и заново вычисляет время по ним
+    @Override
+    public Epic toTask() {
+        Epic epic = new Epic(getName(), getDescription());
+        epic.setId(getId());
+        return epic;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o)
+                && Objects.equals(endTime, ((EpicSnapshot) o).endTime)
+                && subtaskIds.equals(((EpicSnapshot) o).subtaskIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * super.hashCode() + Objects.hashCode(endTime)) + subtaskIds.hashCode();
+    }
+}
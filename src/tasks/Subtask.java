@@ -1,5 +1,8 @@
 package tasks;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 public class Subtask extends Task {
     private int epicId;
 
@@ -9,12 +12,30 @@ public class Subtask extends Task {
         this.epicId = epicId;
     }
 
+    public Subtask(String name, String description, Status status, int epicId,
+                   LocalDateTime startTime, Duration duration) {
+        this(name, description, status, epicId);
+        this.startTime = startTime;
+        this.duration = duration;
+    }
+
     public int getEpicId() {
         return epicId;
     }
 
     public void setEpicId(int epicId) {
         this.epicId = epicId;
+        invalidateSnapshot();
+    }
+
+    @Override
+    public SubtaskSnapshot snapshot() {
+        return (SubtaskSnapshot) super.snapshot();
+    }
+
+    @Override
+    protected SubtaskSnapshot createSnapshot() {
+        return new SubtaskSnapshot(id, name, description, status, startTime, duration, epicId);
     }
 
     @Override
@@ -29,6 +50,8 @@ public class Subtask extends Task {
                 ", name='" + name + '\'' +
                 ", status=" + status +
                 ", epicId=" + epicId +
+                ", startTime=" + startTime +
+                ", duration=" + duration +
                 '}';
     }
 }
\ No newline at end of file
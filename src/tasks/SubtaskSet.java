@@ -0,0 +1,182 @@
+package tasks;
+
+import util.IntTable;
+import util.PersistentIntMap;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// Подзадачи эпика с учтенными статусами в порядке добавления.
+// Индекс id -> (номер добавления, статус) - IntTable: добавление, удаление и поиск - O(1) в среднем.
+// Порядок хранится в неизменяемом отображении номер добавления -> id: изменение копирует только путь
+// в дереве, O(log32 k), а снимок эпика забирает текущую версию за O(1) без копирования id
+class SubtaskSet {
+    private static class Entry {
+        final int sequence;
+        Status status;
+
+        Entry(int sequence, Status status) {
+            this.sequence = sequence;
+            this.status = status;
+        }
+    }
+
+    private final IntTable<Entry> entries = new IntTable<>(4);
+    private PersistentIntMap<Integer> order = PersistentIntMap.empty();
+    private int nextSequence;
+    // Последняя выданная версия: пока подзадачи не менялись, снимки эпика разделяют один список
+    private Frozen frozen;
+
+    private final List<Integer> view = new View();
+
+    int size() {
+        return entries.size();
+    }
+
+    boolean contains(int id) {
+        return entries.containsKey(id);
+    }
+
+    // Учтенный статус подзадачи или null, если ее нет
+    Status status(int id) {
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.status;
+    }
+
+    // Возвращает прежний статус или null для новой подзадачи
+    Status put(int id, Status status) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            Status oldStatus = entry.status;
+            entry.status = status;
+            return oldStatus;
+        }
+
+        if (nextSequence == Integer.MAX_VALUE) {
+            renumber();
+        }
+        entries.put(id, new Entry(nextSequence, status));
+        order = order.put(nextSequence++, id);
+        return null;
+    }
+
+    // Возвращает статус удаленной подзадачи или null, если ее не было
+    Status remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return null;
+        }
+        order = order.remove(entry.sequence);
+        return entry.status;
+    }
+
+    void clear() {
+        entries.clear();
+        order = PersistentIntMap.empty();
+        nextSequence = 0;
+    }
+
+    // Только для чтения; итерация идет в порядке добавления
+    List<Integer> view() {
+        return view;
+    }
+
+    // Неизменяемая версия в порядке добавления, за O(1): последующие изменения ее не затрагивают
+    List<Integer> freeze() {
+        if (frozen == null || frozen.order != order) {
+            frozen = new Frozen(order);
+        }
+        return frozen;
+    }
+
+    // Номера добавления исчерпаны: нумерация заново подряд с сохранением порядка
+    private void renumber() {
+        PersistentIntMap<Integer> renumbered = PersistentIntMap.empty();
+        int sequence = 0;
+        for (int id : order.values()) {
+            Entry entry = entries.get(id);
+            entries.put(id, new Entry(sequence, entry.status));
+            renumbered = renumbered.put(sequence++, id);
+        }
+        order = renumbered;
+        nextSequence = sequence;
+    }
+
+    // Список поверх версии порядка. Доступ по индексу - из плотного массива id, который строится
+    // при первом обращении по индексу к этой версии: цикл по индексам - O(k) в сумме, а не O(k^2).
+    // Массив вместе со своей версией лежит в одном неизменяемом объекте, поэтому снимок,
+    // разделяемый между потоками, не увидит массив от другой версии
+    private abstract static class OrderList extends AbstractList<Integer> implements RandomAccess {
+        private Indexed indexed;
+
+        abstract PersistentIntMap<Integer> order();
+
+        @Override
+        public Integer get(int index) {
+            PersistentIntMap<Integer> order = order();
+            Indexed current = indexed;
+            if (current == null || current.order != order) {
+                current = new Indexed(order);
+                indexed = current;
+            }
+            return current.ids[Objects.checkIndex(index, current.ids.length)];
+        }
+
+        @Override
+        public int size() {
+            return order().size();
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return order().values().iterator();
+        }
+    }
+
+    private static class Indexed {
+        final PersistentIntMap<Integer> order;
+        final int[] ids;
+
+        Indexed(PersistentIntMap<Integer> order) {
+            this.order = order;
+            this.ids = new int[order.size()];
+            int i = 0;
+            for (int id : order.values()) {
+                ids[i++] = id;
+            }
+        }
+    }
+
+    private class View extends OrderList {
+        @Override
+        PersistentIntMap<Integer> order() {
+            return order;
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer && entries.containsKey((Integer) o);
+        }
+    }
+
+    private static class Frozen extends OrderList {
+        private final PersistentIntMap<Integer> order;
+
+        Frozen(PersistentIntMap<Integer> order) {
+            this.order = order;
+        }
+
+        @Override
+        PersistentIntMap<Integer> order() {
+            return order;
+        }
+    }
+}
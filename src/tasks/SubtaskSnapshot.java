@@ -0,0 +1,76 @@
+package tasks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public class SubtaskSnapshot extends TaskSnapshot {
+    private final int epicId;
+
+    SubtaskSnapshot(int id, String name, String description, Status status,
+                    LocalDateTime startTime, Duration duration, int epicId) {
+        super(id, name, description, status, startTime, duration);
+        this.epicId = epicId;
+    }
+
+    public int getEpicId() {
+        return epicId;
+    }
+
+    @Override
+    public TaskType getType() {
+        return TaskType.SUBTASK;
+    }
+
+    @Override
+    public SubtaskSnapshot withName(String name) {
+        return (SubtaskSnapshot) super.withName(name);
+    }
+
+    @Override
+    public SubtaskSnapshot withDescription(String description) {
+        return (SubtaskSnapshot) super.withDescription(description);
+    }
+
+    @Override
+    public SubtaskSnapshot withStatus(Status status) {
+        return (SubtaskSnapshot) super.withStatus(status);
+    }
+
+    @Override
+    public SubtaskSnapshot withStartTime(LocalDateTime startTime) {
+        return (SubtaskSnapshot) super.withStartTime(startTime);
+    }
+
+    @Override
+    public SubtaskSnapshot withDuration(Duration duration) {
+        return (SubtaskSnapshot) super.withDuration(duration);
+    }
+
+    public SubtaskSnapshot withEpicId(int epicId) {
+        return new SubtaskSnapshot(getId(), getName(), getDescription(), getStatus(),
+                getStartTime(), getDuration(), epicId);
+    }
+
+    @Override
+    SubtaskSnapshot copy(String name, String description, Status status, LocalDateTime startTime, Duration duration) {
+        return new SubtaskSnapshot(getId(), name, description, status, startTime, duration, epicId);
+    }
+
+    @Override
+    public Subtask toTask() {
+        Subtask subtask = new Subtask(getName(), getDescription(), getStatus(), epicId,
+                getStartTime(), getDuration());
+        subtask.setId(getId());
+        return subtask;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && epicId == ((SubtaskSnapshot) o).epicId;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + epicId;
+    }
+}
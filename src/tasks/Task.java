@@ -1,5 +1,7 @@
 package tasks;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 public class Task {
@@ -7,6 +9,11 @@ public class Task {
     protected String description;
     protected int id;
     protected Status status;
+    // Время начала и продолжительность необязательны; задачи со временем начала попадают в расписание
+    protected LocalDateTime startTime;
+    protected Duration duration;
+    // Снимок переиспользуется, пока задача не изменится
+    private TaskSnapshot snapshot;
 
     public Task(String name, String description) {
         this.name = name;
@@ -14,8 +21,15 @@ public class Task {
         this.status = Status.NEW;
     }
 
+    public Task(String name, String description, LocalDateTime startTime, Duration duration) {
+        this(name, description);
+        this.startTime = startTime;
+        this.duration = duration;
+    }
+
     public void setId(int id) {
         this.id = id;
+        invalidateSnapshot();
     }
 
     public int getId() {
@@ -28,6 +42,7 @@ public class Task {
 
     public void setName(String name) {
         this.name = name;
+        invalidateSnapshot();
     }
 
     public String getDescription() {
@@ -36,6 +51,7 @@ public class Task {
 
     public void setDescription(String description) {
         this.description = description;
+        invalidateSnapshot();
     }
 
     public Status getStatus() {
@@ -44,18 +60,64 @@ public class Task {
 
     public void setStatus(Status status) {
         this.status = status;
+        invalidateSnapshot();
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+        invalidateSnapshot();
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Duration duration) {
+        this.duration = duration;
+        invalidateSnapshot();
+    }
+
+    // Без времени начала - null, без продолжительности задача считается мгновенной
+    public LocalDateTime getEndTime() {
+        if (startTime == null) {
+            return null;
+        }
+        return duration == null ? startTime : startTime.plus(duration);
     }
 
     public TaskType getType() {
         return TaskType.TASK;
     }
 
+    public TaskSnapshot snapshot() {
+        TaskSnapshot current = snapshot;
+        if (current == null) {
+            current = createSnapshot();
+            snapshot = current;
+        }
+        return current;
+    }
+
+    protected TaskSnapshot createSnapshot() {
+        return new TaskSnapshot(id, name, description, status, startTime, duration);
+    }
+
+    protected void invalidateSnapshot() {
+        snapshot = null;
+    }
+
     @Override
     public String toString() {
         return "Task{" +
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", status=" + status +
+                ", startTime=" + startTime +
+                ", duration=" + duration +
                 '}';
     }
 
@@ -0,0 +1,127 @@
+package tasks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Неизменяемый снимок задачи. Менеджер отдает его без копирования: изменить через него состояние менеджера нельзя,
+// а читать можно из любого потока без блокировок.
+// with* возвращают новый снимок того же вида, неизменившиеся поля (в том числе список подзадач эпика) переиспользуются.
+// Для записи в менеджер снимок превращается обратно в задачу через toTask().
+public class TaskSnapshot {
+    private final int id;
+    private final String name;
+    private final String description;
+    private final Status status;
+    private final LocalDateTime startTime;
+    private final Duration duration;
+
+    TaskSnapshot(int id, String name, String description, Status status,
+                 LocalDateTime startTime, Duration duration) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.status = status;
+        this.startTime = startTime;
+        this.duration = duration;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    // Так же, как Task.getEndTime()
+    public LocalDateTime getEndTime() {
+        if (startTime == null) {
+            return null;
+        }
+        return duration == null ? startTime : startTime.plus(duration);
+    }
+
+    public TaskType getType() {
+        return TaskType.TASK;
+    }
+
+    public TaskSnapshot withName(String name) {
+        return copy(name, description, status, startTime, duration);
+    }
+
+    public TaskSnapshot withDescription(String description) {
+        return copy(name, description, status, startTime, duration);
+    }
+
+    public TaskSnapshot withStatus(Status status) {
+        return copy(name, description, status, startTime, duration);
+    }
+
+    public TaskSnapshot withStartTime(LocalDateTime startTime) {
+        return copy(name, description, status, startTime, duration);
+    }
+
+    public TaskSnapshot withDuration(Duration duration) {
+        return copy(name, description, status, startTime, duration);
+    }
+
+    // Снимок того же вида с другими общими полями; поля подклассов переносятся без изменений
+    TaskSnapshot copy(String name, String description, Status status, LocalDateTime startTime, Duration duration) {
+        return new TaskSnapshot(id, name, description, status, startTime, duration);
+    }
+
+    // Новая изменяемая задача с полями снимка, например для updateTask
+    public Task toTask() {
+        Task task = new Task(name, description, startTime, duration);
+        task.setId(id);
+        task.setStatus(status);
+        return task;
+    }
+
+    // В отличие от задач, снимки сравниваются по всем полям: это значения, а не сущности
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TaskSnapshot snapshot = (TaskSnapshot) o;
+        return id == snapshot.id
+                && Objects.equals(name, snapshot.name)
+                && Objects.equals(description, snapshot.description)
+                && status == snapshot.status
+                && Objects.equals(startTime, snapshot.startTime)
+                && Objects.equals(duration, snapshot.duration);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, description, status, startTime, duration);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", status=" + status +
+                ", startTime=" + startTime +
+                ", duration=" + duration +
+                '}';
+    }
+}
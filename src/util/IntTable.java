@@ -0,0 +1,276 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Отображение int -> значение на примитивных массивах с сохранением порядка добавления.
+// Ключи и значения лежат подряд в keys/values, удаленные записи помечаются null и вычищаются уплотнением;
+// индекс ключ -> позиция - открытая адресация с линейным пробированием.
+// Добавление, удаление и поиск - O(1) в среднем, без упаковки ключей и узлов на каждую запись.
+// Уплотнение идет только при записи: чтение и обход структуру не меняют.
+// Обход, как у коллекций java.util, быстро отказывает: добавление или удаление ключа во время обхода
+// дает ConcurrentModificationException на следующем шаге итератора
+public final class IntTable<V> {
+    private int[] keys;
+    // null - запись удалена
+    private Object[] values;
+    // Занятые позиции, включая удаленные записи
+    private int end;
+    private int size;
+    // Позиция записи + 1, 0 - пустая ячейка
+    private int[] table;
+    // Число структурных изменений; замена значения существующего ключа его не меняет
+    private int modCount;
+
+    private final Collection<V> valuesView = new Values();
+    private final Collection<Integer> keysView = new Keys();
+
+    // capacity - степень двойки
+    public IntTable(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        table = new int[capacity * 2];
+    }
+
+    public V get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : value(table[slot] - 1);
+    }
+
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    // Возвращает прежнее значение или null для нового ключа
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Значение не может быть null");
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int position = table[slot] - 1;
+            V old = value(position);
+            values[position] = value;
+            return old;
+        }
+
+        if (end == keys.length) {
+            if (end - size >= end / 2) {
+                compact();
+            } else {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+        }
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+
+        keys[end] = key;
+        values[end] = value;
+        insert(key, end);
+        end++;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    // Возвращает удаленное значение или null, если ключа не было
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+
+        int position = table[slot] - 1;
+        V old = value(position);
+        values[position] = null;
+        deleteSlot(slot);
+        size--;
+        modCount++;
+
+        if (size == 0) {
+            end = 0;
+        } else if (end - size > size && end - size > 16) {
+            compact();
+        }
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, end, null);
+        Arrays.fill(table, 0);
+        end = 0;
+        size = 0;
+        modCount++;
+    }
+
+    // Только для чтения, в порядке добавления
+    public Collection<V> values() {
+        return valuesView;
+    }
+
+    // Только для чтения, в порядке добавления
+    public Collection<Integer> keys() {
+        return keysView;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int position) {
+        return (V) values[position];
+    }
+
+    private int findSlot(int key) {
+        int mask = table.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (keys[entry - 1] == key) {
+                return slot;
+            }
+        }
+    }
+
+    private void insert(int key, int position) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = position + 1;
+    }
+
+    // Удаление со сдвигом: следующие записи цепочки переносятся на освободившееся место
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        int free = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & mask;
+            int entry = table[current];
+            if (entry == 0) {
+                table[free] = 0;
+                return;
+            }
+            int home = hash(keys[entry - 1]) & mask;
+            // Запись можно сдвинуть, если ее исходная ячейка не лежит между free и current
+            boolean movable = free <= current
+                    ? home <= free || home > current
+                    : home <= free && home > current;
+            if (movable) {
+                table[free] = entry;
+                free = current;
+            }
+        }
+    }
+
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < end; i++) {
+            if (values[i] != null) {
+                keys[live] = keys[i];
+                values[live] = values[i];
+                live++;
+            }
+        }
+        Arrays.fill(values, live, end, null);
+        end = live;
+        rehash(table.length);
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int i = 0; i < end; i++) {
+            if (values[i] != null) {
+                insert(keys[i], i);
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private int skipRemoved(int position) {
+        while (position < end && values[position] == null) {
+            position++;
+        }
+        return position;
+    }
+
+    // Обход в порядке добавления, удаленные записи пропускаются
+    private abstract class Cursor<E> implements Iterator<E> {
+        private int position = skipRemoved(0);
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (position >= end) {
+                throw new NoSuchElementException();
+            }
+            E element = element(position);
+            position = skipRemoved(position + 1);
+            return element;
+        }
+
+        abstract E element(int position);
+    }
+
+    private class Values extends AbstractCollection<V> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Cursor<>() {
+                @Override
+                V element(int position) {
+                    return value(position);
+                }
+            };
+        }
+    }
+
+    private class Keys extends AbstractCollection<Integer> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer && containsKey((Integer) o);
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Cursor<>() {
+                @Override
+                Integer element(int position) {
+                    return keys[position];
+                }
+            };
+        }
+    }
+}
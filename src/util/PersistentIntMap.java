@@ -0,0 +1,236 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+// Неизменяемое отображение int -> значение на префиксном дереве: 32 ветви на уровень, в узле хранятся
+// только занятые ветви и битовая маска. put и remove копируют лишь путь от корня до листа - O(log32 n),
+// остальные узлы разделяются со старой версией, которая остается доступной без изменений.
+// Ключи неотрицательные, обход идет по возрастанию ключа. Высота растет по мере роста ключей,
+// поэтому для небольших id дерево неглубокое.
+public final class PersistentIntMap<V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentIntMap<Object> EMPTY = new PersistentIntMap<>(null, 0, 0);
+
+    private static final class Node {
+        final int bitmap;
+        // Дочерние узлы по возрастанию номера ветви, на нижнем уровне - значения
+        final Object[] children;
+
+        Node(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+    }
+
+    private final Node root;
+    // Сдвиг ключа для ветвления в корне
+    private final int shift;
+    private final int size;
+
+    private PersistentIntMap(Node root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (root == null || key < 0 || !fits(key, shift)) {
+            return null;
+        }
+
+        Node node = root;
+        for (int level = shift; ; level -= BITS) {
+            int bit = 1 << ((key >>> level) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object child = node.children[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (level == 0) {
+                return (V) child;
+            }
+            node = (Node) child;
+        }
+    }
+
+    public PersistentIntMap<V> put(int key, V value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Ключ не может быть отрицательным: " + key);
+        }
+        Objects.requireNonNull(value, "Значение не может быть null");
+
+        Node newRoot = root;
+        int newShift = root == null ? 0 : shift;
+        while (!fits(key, newShift)) {
+            // Прежний корень становится нулевой ветвью нового уровня
+            if (newRoot != null) {
+                newRoot = new Node(1, new Object[]{newRoot});
+            }
+            newShift += BITS;
+        }
+
+        int newSize = get(key) == null ? size + 1 : size;
+        return new PersistentIntMap<>(put(newRoot, newShift, key, value), newShift, newSize);
+    }
+
+    public PersistentIntMap<V> remove(int key) {
+        if (get(key) == null) {
+            return this;
+        }
+
+        Node newRoot = remove(root, shift, key);
+        if (newRoot == null) {
+            return empty();
+        }
+        return new PersistentIntMap<>(newRoot, shift, size - 1);
+    }
+
+    // Только для чтения, по возрастанию ключа
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator(0);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Значения с ключом не меньше fromKey по возрастанию ключа: начало обхода находится спуском за O(log32 n)
+    public Iterator<V> valuesFrom(int fromKey) {
+        return new ValueIterator(Math.max(fromKey, 0));
+    }
+
+    private static Node put(Node node, int level, int key, Object value) {
+        int bit = 1 << ((key >>> level) & MASK);
+        int bitmap = node == null ? 0 : node.bitmap;
+        int index = Integer.bitCount(bitmap & (bit - 1));
+
+        if ((bitmap & bit) != 0) {
+            Object[] children = node.children.clone();
+            children[index] = level == 0 ? value : put((Node) children[index], level - BITS, key, value);
+            return new Node(bitmap, children);
+        }
+
+        Object[] children = new Object[Integer.bitCount(bitmap) + 1];
+        if (node != null) {
+            System.arraycopy(node.children, 0, children, 0, index);
+            System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+        }
+        children[index] = level == 0 ? value : put(null, level - BITS, key, value);
+        return new Node(bitmap | bit, children);
+    }
+
+    // Ключ точно есть в дереве; null - узел опустел
+    private static Node remove(Node node, int level, int key) {
+        int bit = 1 << ((key >>> level) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+
+        if (level > 0) {
+            Node child = remove((Node) node.children[index], level - BITS, key);
+            if (child != null) {
+                Object[] children = node.children.clone();
+                children[index] = child;
+                return new Node(node.bitmap, children);
+            }
+        }
+
+        if (node.bitmap == bit) {
+            return null;
+        }
+        Object[] children = new Object[node.children.length - 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.children, index + 1, children, index, children.length - index);
+        return new Node(node.bitmap & ~bit, children);
+    }
+
+    // Помещается ли ключ в дерево, корень которого ветвится по сдвигу shift
+    private static boolean fits(int key, int shift) {
+        return shift + BITS >= Integer.SIZE - 1 || key >>> (shift + BITS) == 0;
+    }
+
+    // Обход в глубину со стеком на высоту дерева
+    private class ValueIterator implements Iterator<V> {
+        private final Node[] path = new Node[shift / BITS + 1];
+        private final int[] positions = new int[path.length];
+        private int depth = -1;
+        private Object next;
+
+        // Спуск по ветвям ключа from: на каждом уровне позиция - первая ветвь, которая еще не пройдена
+        ValueIterator(int from) {
+            if (root != null && fits(from, shift)) {
+                seek(from);
+            }
+            advance();
+        }
+
+        private void seek(int from) {
+            Node node = root;
+            for (int level = shift, d = 0; ; level -= BITS, d++) {
+                path[d] = node;
+                depth = d;
+                int bit = 1 << ((from >>> level) & MASK);
+                int index = Integer.bitCount(node.bitmap & (bit - 1));
+                // На нижнем уровне значение с ключом from (если есть) тоже входит в обход
+                if (level == 0 || (node.bitmap & bit) == 0) {
+                    positions[d] = index;
+                    return;
+                }
+                positions[d] = index + 1;
+                node = (Node) node.children[index];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Object value = next;
+            advance();
+            return (V) value;
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = path[depth];
+                if (positions[depth] == node.children.length) {
+                    depth--;
+                    continue;
+                }
+                Object child = node.children[positions[depth]++];
+                if (depth == path.length - 1) {
+                    next = child;
+                    return;
+                }
+                path[++depth] = (Node) child;
+                positions[depth] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package http;
+
+import manager.Managers;
+import manager.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTaskServerTest {
+    private TaskManager manager;
+    private HttpTaskServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = Managers.getConcurrent();
+        server = new HttpTaskServer(manager, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void createGetUpdateDeleteTask() throws Exception {
+        HttpResponse<String> created = post("/tasks", "{\"name\":\"Задача \\\"1\\\"\",\"description\":\"Описание\"}");
+        assertEquals(201, created.statusCode(), "Задача создается");
+        Map<String, Object> json = JsonReader.parseObject(created.body());
+        int id = ((Long) json.get("id")).intValue();
+        assertEquals("Задача \"1\"", manager.getSnapshot(id).getName(), "Название с кавычками сохраняется");
+
+        HttpResponse<String> got = get("/tasks/" + id);
+        assertEquals(200, got.statusCode());
+        assertEquals("NEW", JsonReader.parseObject(got.body()).get("status"));
+
+        assertEquals(201, post("/tasks", "{\"id\":" + id + ",\"name\":\"Задача\",\"status\":\"DONE\"}").statusCode(),
+                "Задача с id обновляется");
+        assertEquals(Status.DONE, manager.getSnapshot(id).getStatus());
+
+        assertEquals(200, delete("/tasks/" + id).statusCode());
+        assertEquals(404, get("/tasks/" + id).statusCode(), "Удаленная задача не найдена");
+        assertEquals(404, delete("/tasks/" + id).statusCode());
+        assertEquals(404, post("/tasks", "{\"id\":" + id + ",\"name\":\"Задача\"}").statusCode(),
+                "Нельзя обновить несуществующую задачу");
+    }
+
+    @Test
+    void epicsAndSubtasks() throws Exception {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+
+        HttpResponse<String> created = post("/subtasks",
+                "{\"name\":\"Подзадача\",\"description\":\"\",\"status\":\"DONE\",\"epicId\":" + epic.getId() + "}");
+        assertEquals(201, created.statusCode());
+        assertEquals(Status.DONE, manager.getSnapshot(epic.getId()).getStatus(), "Статус эпика пересчитан");
+
+        List<?> subtasks = (List<?>) JsonReader.parse(get("/epics/" + epic.getId() + "/subtasks").body());
+        assertEquals(1, subtasks.size(), "У эпика одна подзадача");
+
+        Map<String, Object> epicJson = JsonReader.parseObject(get("/epics/" + epic.getId()).body());
+        assertEquals(List.of(((Map<?, ?>) subtasks.get(0)).get("id")), epicJson.get("subtaskIds"));
+
+        assertEquals(404, post("/subtasks", "{\"name\":\"Подзадача\",\"epicId\":999}").statusCode(),
+                "Подзадача без эпика не создается");
+        assertEquals(404, get("/epics/999/subtasks").statusCode());
+        assertEquals(404, get("/subtasks/" + epic.getId()).statusCode(), "Эпик не находится как подзадача");
+
+        assertEquals(200, delete("/epics/" + epic.getId()).statusCode());
+        assertEquals(List.of(), JsonReader.parse(get("/subtasks").body()), "Подзадачи удалены вместе с эпиком");
+    }
+
+    @Test
+    void history() throws Exception {
+        Task task = new Task("Задача", "Описание");
+        manager.addTask(task);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача", "Описание", Status.NEW, epic.getId()));
+
+        get("/epics/" + epic.getId());
+        get("/tasks/" + task.getId());
+
+        List<?> history = (List<?>) JsonReader.parse(get("/history").body());
+        assertEquals(2, history.size(), "Проверка существования не попадает в историю");
+        assertEquals((long) epic.getId(), ((Map<?, ?>) history.get(0)).get("id"));
+        assertEquals((long) task.getId(), ((Map<?, ?>) history.get(1)).get("id"));
+    }
+
+    @Test
+    void badRequests() throws Exception {
+        assertEquals(400, post("/tasks", "{\"name\":").statusCode(), "Некорректный JSON");
+        assertEquals(400, post("/tasks", "{\"name\":\"Задача\",\"status\":\"UNKNOWN\"}").statusCode());
+        assertEquals(400, post("/subtasks", "{\"name\":\"Подзадача\"}").statusCode(), "Подзадача без epicId");
+        assertEquals(400, get("/tasks/abc").statusCode(), "Некорректный id");
+        assertEquals(404, get("/tasks/1/extra/path").statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(uri("/history")).PUT(HttpRequest.BodyPublishers.noBody()))
+                .statusCode());
+
+        String error = (String) JsonReader.parseObject(get("/tasks/abc").body()).get("error");
+        assertTrue(error.contains("abc"), "Текст ошибки передается клиенту");
+    }
+
+    @Test
+    void deeplyNestedJsonIsRejected() throws Exception {
+        String nested = "[".repeat(100_000) + "]".repeat(100_000);
+        assertEquals(400, post("/tasks", "{\"name\":\"Задача\",\"extra\":" + nested + "}").statusCode(),
+                "Слишком глубокая вложенность - некорректный запрос, а не ошибка сервера");
+
+        String allowed = "[".repeat(JsonReader.MAX_DEPTH) + "]".repeat(JsonReader.MAX_DEPTH);
+        assertDoesNotThrow(() -> JsonReader.parse(allowed));
+        assertThrows(IllegalArgumentException.class, () -> JsonReader.parse("[" + allowed + "]"));
+    }
+
+    @Test
+    void cursorPagination() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            manager.addTask(new Task("Задача " + i, "Описание"));
+        }
+
+        List<Object> ids = new ArrayList<>();
+        Object cursor = null;
+        int pages = 0;
+        do {
+            String query = "/tasks?limit=10" + (cursor == null ? "" : "&cursor=" + cursor);
+            Map<String, Object> page = JsonReader.parseObject(get(query).body());
+            for (Object item : (List<?>) page.get("items")) {
+                ids.add(((Map<?, ?>) item).get("id"));
+            }
+            cursor = page.get("nextCursor");
+            pages++;
+            // Новые задачи получают большие id и попадают на последние страницы, а не сдвигают текущие
+            if (pages == 1) {
+                manager.deleteTaskById(1);
+                manager.addTask(new Task("Новая задача", "Описание"));
+            }
+        } while (cursor != null);
+
+        assertEquals(3, pages, "26 задач по 10 на странице");
+        assertEquals(26, ids.size(), "Ни одна задача не пропущена и не повторена");
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids, "Задачи идут по возрастанию id");
+
+        assertEquals(400, get("/tasks?limit=0").statusCode(), "limit должен быть положительным");
+        assertEquals(400, get("/tasks?limit=abc").statusCode());
+        Map<String, Object> tail = JsonReader.parseObject(get("/tasks?cursor=1000").body());
+        assertEquals(List.of(), tail.get("items"), "Курсор за последней задачей дает пустую страницу");
+        assertNull(tail.get("nextCursor"));
+    }
+
+    @Test
+    void listingsAreStreamed() throws Exception {
+        for (int i = 0; i < 5_000; i++) {
+            manager.addTask(new Task("Задача " + i, "Описание задачи с \"кавычками\" и переводом\nстроки"));
+        }
+
+        HttpResponse<String> response = get("/tasks");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty(), "Список отправляется без Content-Length");
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(""),
+                "Список отправляется частями");
+        List<?> tasks = (List<?>) JsonReader.parse(response.body());
+        assertEquals(5_000, tasks.size());
+        assertEquals("Описание задачи с \"кавычками\" и переводом\nстроки",
+                ((Map<?, ?>) tasks.get(0)).get("description"), "Спецсимволы экранируются");
+
+        HttpResponse<String> single = get("/tasks/1");
+        assertTrue(single.headers().firstValue("Content-Length").isPresent(), "Одна задача отправляется целиком");
+    }
+
+    @Test
+    void jsonWriterEncodesUtf8() throws Exception {
+        String text = "Латиница, кириллица, 漢字, эмодзи \uD83D\uDE80, управляющий \u0001 и \\";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonWriter json = new JsonWriter(bytes)) {
+            json.beginObject().name("text").value(text).name("numbers").beginArray()
+                    .value(0).value(-42).value(Long.MAX_VALUE).value(Long.MIN_VALUE).endArray()
+                    .name("empty").nullValue().endObject();
+        }
+
+        Map<String, Object> parsed = JsonReader.parseObject(bytes.toString(StandardCharsets.UTF_8));
+        assertEquals(text, parsed.get("text"), "Строка восстанавливается без искажений");
+        assertEquals(List.of(0L, -42L, Long.MAX_VALUE, Long.MIN_VALUE), parsed.get("numbers"));
+        assertTrue(parsed.containsKey("empty"));
+        assertNull(parsed.get("empty"));
+    }
+
+    @Test
+    void prioritizedAndOverlaps() throws Exception {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        HttpResponse<String> created = post("/subtasks", "{\"name\":\"Подзадача\",\"epicId\":" + epic.getId()
+                + ",\"startTime\":\"2024-03-01T11:00\",\"duration\":\"PT30M\"}");
+        assertEquals(201, created.statusCode());
+        assertEquals("2024-03-01T11:30", JsonReader.parseObject(created.body()).get("endTime"), "Конец вычисляется");
+        manager.addTask(new Task("Задача", "Описание", LocalDateTime.of(2024, 3, 1, 9, 0), Duration.ofHours(2)));
+
+        assertEquals(406, post("/tasks", "{\"name\":\"Пересекается\",\"startTime\":\"2024-03-01T10:00\"}")
+                .statusCode(), "Пересечение по времени отклоняется");
+        assertEquals(400, post("/tasks", "{\"name\":\"Задача\",\"duration\":\"час\"}").statusCode());
+
+        List<?> prioritized = (List<?>) JsonReader.parse(get("/prioritized").body());
+        assertEquals(List.of("2024-03-01T09:00", "2024-03-01T11:00"),
+                prioritized.stream().map(task -> ((Map<?, ?>) task).get("startTime")).collect(Collectors.toList()),
+                "Задачи идут по времени начала");
+        Map<String, Object> epicJson = JsonReader.parseObject(get("/epics/" + epic.getId()).body());
+        assertEquals("PT30M", epicJson.get("duration"), "Время эпика вычисляется по подзадачам");
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private HttpResponse<String> delete(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).DELETE());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
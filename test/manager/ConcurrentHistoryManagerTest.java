@@ -0,0 +1,140 @@
+package manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest {
+    private HistoryManager historyManager;
+
+    @BeforeEach
+    void setUp() {
+        historyManager = Managers.getConcurrentHistory();
+    }
+
+    @Test
+    void keepsOrderAcrossStripesAndRemovesDuplicates() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            Task task = new Task("Задача " + i, "Описание " + i);
+            task.setId(i);
+            tasks.add(task);
+            historyManager.add(task);
+        }
+        historyManager.add(tasks.get(0));
+        historyManager.remove(25);
+
+        List<Task> history = historyManager.getHistory();
+
+        assertEquals(49, history.size(), "Повторный просмотр не дублирует задачу");
+        assertEquals(tasks.get(1), history.get(0), "Первой идет самая давняя задача");
+        assertEquals(tasks.get(0), history.get(history.size() - 1), "Повторно просмотренная задача в конце");
+        assertFalse(history.contains(tasks.get(24)), "Удаленная задача исчезает из истории");
+    }
+
+    @Test
+    void concurrentViewsAreAllRecorded() throws Exception {
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= perThread; i++) {
+                        Task task = new Task("Задача", "Описание");
+                        task.setId(offset + i);
+                        historyManager.add(task);
+                        // Повторные просмотры одной задачи не создают дубликатов
+                        historyManager.add(task);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(threads * perThread, history.size(), "Каждая задача должна быть в истории один раз");
+        assertEquals(history.size(), history.stream().mapToInt(Task::getId).distinct().count(), "Без дубликатов");
+    }
+
+    @Test
+    void boundedHistoryEvictsLeastRecentlyViewedAcrossStripes() {
+        HistoryManager bounded = Managers.getConcurrentHistory(3);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Task task = new Task("Задача " + i, "Описание");
+            task.setId(i);
+            tasks.add(task);
+        }
+
+        bounded.add(tasks.get(0));
+        bounded.add(tasks.get(1));
+        bounded.add(tasks.get(2));
+        bounded.add(tasks.get(0)); // [2, 3, 1]
+        bounded.add(tasks.get(3)); // [3, 1, 4] - задача 2 вытеснена
+        assertEquals(List.of(tasks.get(2), tasks.get(0), tasks.get(3)), bounded.getHistory());
+
+        bounded.remove(1);
+        bounded.add(tasks.get(4)); // [3, 4, 5]
+        assertEquals(List.of(tasks.get(2), tasks.get(3), tasks.get(4)), bounded.getHistory(),
+                "Удаление освобождает место в истории");
+    }
+
+    @Test
+    void getHistoryWithLimitMergesOnlyMostRecent() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            Task task = new Task("Задача " + i, "Описание");
+            task.setId(i);
+            tasks.add(task);
+            historyManager.add(task);
+        }
+        historyManager.add(tasks.get(0));
+
+        assertEquals(List.of(tasks.get(48), tasks.get(49), tasks.get(0)), historyManager.getHistory(3),
+                "Три последних просмотра по порядку");
+        assertEquals(historyManager.getHistory(), historyManager.getHistory(100), "Лимит больше размера истории");
+        assertTrue(historyManager.getHistory(0).isEmpty(), "Нулевой лимит - пустой список");
+    }
+
+    @Test
+    void concurrentAddsKeepBoundedHistoryAtCapacity() throws Exception {
+        HistoryManager bounded = Managers.getConcurrentHistory(100);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= 1000; i++) {
+                        Task task = new Task("Задача", "Описание");
+                        task.setId(offset + i);
+                        bounded.add(task);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(100, bounded.getHistory().size(), "История не превышает емкость и не теряет лишнего");
+    }
+}
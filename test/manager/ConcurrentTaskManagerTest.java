@@ -0,0 +1,344 @@
+package manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest {
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 500;
+
+    private TaskManager taskManager;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = Managers.getConcurrent();
+    }
+
+    @Test
+    void behavesLikeInMemoryManager() {
+        Task task = new Task("Задача", "Описание");
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        taskManager.addTask(task);
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание подзадачи", Status.DONE, epic.getId());
+        taskManager.addSubtask(subtask);
+
+        assertEquals(task, taskManager.getTaskById(task.getId()), "Задача должна находиться по id");
+        assertEquals(Status.DONE, taskManager.getEpicById(epic.getId()).getStatus(), "Статус эпика должен пересчитаться");
+        assertEquals(List.of(subtask), taskManager.getSubtasksByEpicId(epic.getId()), "Подзадача должна быть в эпике");
+
+        taskManager.deleteEpicById(epic.getId());
+
+        assertTrue(taskManager.getAllSubtasks().isEmpty(), "Подзадачи удаляются вместе с эпиком");
+        assertEquals(List.of(task), taskManager.getHistory(), "В истории остается только задача");
+    }
+
+    @Test
+    void concurrentAddsGetUniqueIds() throws Exception {
+        runInParallel(thread -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                taskManager.addTask(new Task("Задача " + i, "Поток " + thread));
+            }
+        });
+
+        List<Task> all = taskManager.getAllTasks();
+        assertEquals(THREADS * PER_THREAD, all.size(), "Ни одна задача не должна потеряться");
+        assertEquals(all.size(), all.stream().mapToInt(Task::getId).distinct().count(), "id должны быть уникальны");
+    }
+
+    @Test
+    void concurrentSubtaskUpdatesKeepEpicStatusConsistent() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание");
+            taskManager.addEpic(epic);
+            epics.add(epic);
+        }
+
+        runInParallel(thread -> {
+            int epicId = epics.get(thread).getId();
+            for (int i = 0; i < PER_THREAD; i++) {
+                Subtask subtask = new Subtask("Подзадача " + i, "Описание", Status.NEW, epicId);
+                taskManager.addSubtask(subtask);
+                subtask.setStatus(Status.DONE);
+                taskManager.updateSubtask(subtask);
+                taskManager.getSubtaskById(subtask.getId());
+            }
+        });
+
+        for (Epic epic : epics) {
+            assertEquals(PER_THREAD, taskManager.getSubtasksByEpicId(epic.getId()).size(), "Подзадачи не должны теряться");
+            assertEquals(Status.DONE, taskManager.getEpicById(epic.getId()).getStatus(), "Все подзадачи выполнены");
+        }
+        assertEquals(THREADS * PER_THREAD + THREADS, taskManager.getHistory().size(), "История учитывает все просмотры");
+    }
+
+    @Test
+    void snapshotsAreConsistentWhileWritersRun() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание");
+            taskManager.addEpic(epic);
+            epics.add(epic);
+        }
+
+        List<BoardSnapshot> seen = new ArrayList<>();
+        runInParallel(thread -> {
+            if (thread == 0) {
+                // Читатель собирает версии, пока остальные потоки пишут
+                for (int i = 0; i < PER_THREAD; i++) {
+                    seen.add(taskManager.snapshot());
+                }
+                return;
+            }
+            int epicId = epics.get(thread).getId();
+            for (int i = 0; i < PER_THREAD; i++) {
+                Subtask subtask = new Subtask("Подзадача " + i, "Описание", Status.NEW, epicId);
+                taskManager.addSubtask(subtask);
+                if (i % 2 == 0) {
+                    Subtask done = new Subtask(subtask.getName(), "Описание", Status.DONE, epicId);
+                    done.setId(subtask.getId());
+                    taskManager.updateSubtask(done);
+                } else {
+                    taskManager.deleteSubtaskById(subtask.getId());
+                }
+            }
+        });
+        seen.add(taskManager.snapshot());
+
+        for (BoardSnapshot board : seen) {
+            int listed = 0;
+            for (EpicSnapshot epic : board.getEpics()) {
+                int done = 0;
+                int fresh = 0;
+                for (SubtaskSnapshot subtask : board.getSubtasksByEpicId(epic.getId())) {
+                    assertNotNull(subtask, "Подзадача эпика должна быть в той же версии");
+                    done += subtask.getStatus() == Status.DONE ? 1 : 0;
+                    fresh += subtask.getStatus() == Status.NEW ? 1 : 0;
+                    listed++;
+                }
+                int total = epic.getSubtaskIds().size();
+                Status expected = fresh == total ? Status.NEW : done == total ? Status.DONE : Status.IN_PROGRESS;
+                assertEquals(expected, epic.getStatus(), "Статус эпика соответствует подзадачам той же версии");
+            }
+            assertEquals(board.getSubtasks().size(), listed, "Каждая подзадача версии принадлежит эпику");
+        }
+        assertEquals((THREADS - 1) * PER_THREAD / 2, seen.get(seen.size() - 1).getSubtasks().size(),
+                "Последняя версия содержит все оставшиеся подзадачи");
+    }
+
+    @Test
+    void concurrentSchedulingNeverOverlaps() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addEpic(epic);
+        AtomicInteger rejected = new AtomicInteger();
+
+        // Все потоки претендуют на одни и те же часовые интервалы
+        runInParallel(thread -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                LocalDateTime slot = start.plusHours(i);
+                try {
+                    if (thread % 2 == 0) {
+                        taskManager.addTask(new Task("Задача " + i, "Поток " + thread, slot, Duration.ofHours(1)));
+                    } else {
+                        taskManager.addSubtask(new Subtask("Подзадача " + i, "Поток " + thread, Status.NEW,
+                                epic.getId(), slot, Duration.ofHours(1)));
+                    }
+                } catch (TaskOverlapException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(PER_THREAD, prioritized.size(), "Каждый интервал занят ровно одной задачей");
+        assertEquals((THREADS - 1) * PER_THREAD, rejected.get(), "Остальные попытки отклонены");
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertFalse(prioritized.get(i).getStartTime().isBefore(prioritized.get(i - 1).getEndTime()),
+                    "Задачи в расписании не пересекаются");
+        }
+        int subtasks = taskManager.getSubtasksByEpicId(epic.getId()).size();
+        assertEquals(subtasks == 0 ? null : Duration.ofHours(subtasks), taskManager.getEpicById(epic.getId()).getDuration(),
+                "Продолжительность эпика - сумма продолжительностей его подзадач");
+    }
+
+    @Test
+    void clearingTimeInPlaceFreesTheSlot() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Task task = new Task("Задача", "Описание", start, Duration.ofHours(1));
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addTask(task);
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Status.NEW, epic.getId(),
+                start.plusHours(2), Duration.ofHours(1));
+        taskManager.addSubtask(subtask);
+
+        // Хранимые объекты меняются на месте, поэтому у старой и новой версии одно время
+        Task storedTask = taskManager.getTaskById(task.getId());
+        storedTask.setStartTime(null);
+        taskManager.updateTask(storedTask);
+        Subtask storedSubtask = taskManager.getSubtaskById(subtask.getId());
+        storedSubtask.setStartTime(null);
+        storedSubtask.setDuration(null);
+        taskManager.updateSubtask(storedSubtask);
+
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "Задачи без времени уходят из расписания");
+        assertNull(taskManager.getEpicById(epic.getId()).getStartTime(), "Время эпика пересчитывается");
+        assertNull(taskManager.getEpicById(epic.getId()).getDuration());
+        taskManager.addTask(new Task("Новая", "Описание", start, Duration.ofHours(3)));
+        assertEquals(1, taskManager.getPrioritizedTasks().size(), "Освобожденное время можно занять");
+    }
+
+    @Test
+    void deletingTasksChangedInPlaceFreesTheirSlots() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Task first = new Task("Первая", "Описание", start, Duration.ofHours(1));
+        Task second = new Task("Вторая", "Описание", start.plusHours(2), Duration.ofHours(1));
+        taskManager.addTask(first);
+        taskManager.addTask(second);
+
+        // Без updateTask: в расписании остается время опубликованной версии
+        taskManager.getTaskById(first.getId()).setStartTime(null);
+        taskManager.deleteTaskById(first.getId());
+        taskManager.batch(ops -> {
+            taskManager.getTaskById(second.getId()).setStartTime(null);
+            ops.deleteTaskById(second.getId());
+        });
+
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "Удаленные задачи уходят из расписания");
+        taskManager.addTask(new Task("Новая", "Описание", start, Duration.ofHours(4)));
+        assertEquals(1, taskManager.getPrioritizedTasks().size(), "Освобожденное время можно занять");
+    }
+
+    @Test
+    void batchIsValidatedWholeAndPublishedAtOnce() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Task existing = new Task("Задача", "Описание", start, Duration.ofHours(1));
+        taskManager.addTask(existing);
+
+        assertThrows(TaskOverlapException.class, () -> taskManager.batch(ops -> {
+            ops.addTask(new Task("Свободное время", "Описание", start.plusHours(2), Duration.ofHours(1)));
+            ops.addTask(new Task("Пересекается с задачей", "Описание", start.plusMinutes(30), Duration.ofHours(1)));
+        }));
+        assertEquals(List.of(existing), taskManager.getAllTasks(), "Прерванный пакет ничего не меняет");
+
+        // Пакеты добавляют задачи парами: ни один снимок не должен увидеть половину пакета
+        AtomicInteger torn = new AtomicInteger();
+        runInParallel(thread -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                if (thread == 0) {
+                    taskManager.batch(ops -> {
+                        ops.addTask(new Task("Первая", "Описание"));
+                        ops.addTask(new Task("Вторая", "Описание"));
+                    });
+                } else if (taskManager.snapshot().getTasks().size() % 2 == 0) {
+                    torn.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(0, torn.get(), "Снимок содержит пакет целиком или не содержит вовсе");
+        assertEquals(1 + 2 * PER_THREAD, taskManager.getAllTasks().size());
+    }
+
+    @Test
+    void missingEpicIdsDoNotLeaveLocks() {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        for (int id = 1_000; id < 2_000; id++) {
+            manager.addSubtask(new Subtask("Подзадача", "Описание", Status.NEW, id));
+            assertTrue(manager.getSubtasksByEpicId(id).isEmpty());
+            manager.deleteEpicById(id);
+        }
+        assertEquals(1, manager.epicLockCount(), "Блокировки заводятся только для существующих эпиков");
+
+        manager.deleteEpicById(epic.getId());
+        assertEquals(0, manager.epicLockCount(), "Блокировка удаляется вместе с эпиком");
+    }
+
+    @Test
+    void subtasksForEpicsBeingAddedStayConsistent() throws Exception {
+        // Следующий id, скорее всего, как раз достается эпику другого потока
+        runInParallel(thread -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                Epic epic = new Epic("Эпик " + thread, "Описание");
+                taskManager.addEpic(epic);
+                taskManager.addSubtask(new Subtask("Подзадача", "Описание", Status.DONE, epic.getId() + 1));
+            }
+        });
+
+        int attached = 0;
+        for (Epic epic : taskManager.getAllEpics()) {
+            List<Subtask> subtasks = taskManager.getSubtasksByEpicId(epic.getId());
+            for (Subtask subtask : subtasks) {
+                assertEquals(epic.getId(), subtask.getEpicId(), "Подзадача должна быть в своем эпике");
+            }
+            assertEquals(subtasks.isEmpty() ? Status.NEW : Status.DONE, epic.getStatus());
+            attached += subtasks.size();
+        }
+        assertEquals(taskManager.getAllSubtasks().size(), attached, "Каждая подзадача учтена в своем эпике");
+    }
+
+    @Test
+    void searchIndexFollowsConcurrentChanges() throws Exception {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addEpic(epic);
+
+        runInParallel(thread -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                Task task = new Task("Черновик " + thread, "Описание");
+                taskManager.addTask(task);
+                task.setName("Готово " + thread);
+                taskManager.updateTask(task);
+                if (i % 2 == 0) {
+                    taskManager.deleteTaskById(task.getId());
+                }
+                taskManager.addSubtask(new Subtask("Шаг " + thread, "Описание", Status.NEW, epic.getId()));
+            }
+        });
+
+        assertTrue(taskManager.search("черновик").isEmpty(), "Обновление заменяет слова задачи в индексе");
+        assertEquals(THREADS * PER_THREAD / 2, taskManager.search("готово").size(), "Удаленные задачи не находятся");
+        assertEquals(PER_THREAD / 2, taskManager.search("готово 3").size(), "Слова запроса объединяются по И");
+        assertEquals(THREADS * PER_THREAD, taskManager.search("шаг").size(), "Подзадачи индексируются");
+
+        taskManager.clearSubtasks();
+        assertTrue(taskManager.search("шаг").isEmpty(), "Очистка подзадач удаляет их из индекса");
+        taskManager.deleteEpicById(epic.getId());
+        assertTrue(taskManager.search("эпик").isEmpty(), "Удаленный эпик не находится");
+    }
+
+    private void runInParallel(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> body.run(thread)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
@@ -8,8 +8,15 @@ import tasks.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -138,4 +145,492 @@ class FileBackedTaskManagerTest {
         assertEquals(0, loadedManager.getAllTasks().size(), "Список задач должен быть пустым");
         assertEquals(1, loadedManager.getAllEpics().size(), "Должен остаться один эпик");
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadParsesFileLineByLine() throws IOException {
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic\r\n"
+                + "1,TASK,Задача,DONE,Описание,\r\n"
+                + "\r\n"
+                + "2,EPIC,Эпик,NEW,Описание эпика,\r\n"
+                + "3,SUBTASK,Подзадача,IN_PROGRESS,Описание подзадачи,2\r\n");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(Status.DONE, loadedManager.getTaskById(1).getStatus(), "Статус задачи должен загрузиться");
+        assertEquals("Описание эпика", loadedManager.getEpicById(2).getDescription(), "Описание без символов перевода строки");
+        assertEquals(2, loadedManager.getSubtaskById(3).getEpicId(), "ID эпика у подзадачи должен загрузиться");
+        assertEquals(Status.IN_PROGRESS, loadedManager.getEpicById(2).getStatus(), "Статус эпика пересчитывается");
+        assertEquals(List.of(loadedManager.getEpicById(2)), loadedManager.getTasksByStatus(Status.IN_PROGRESS, TaskType.EPIC),
+                "Индекс по статусу строится после загрузки");
+
+        Task newTask = new Task("Новая задача", "Описание");
+        loadedManager.addTask(newTask);
+        assertEquals(4, newTask.getId(), "ID продолжает последовательность");
+    }
+
+    @Test
+    void legacySnapshotWithUnescapedQuotesLoadsLineByLine() throws IOException {
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic\n"
+                + "1,TASK,\"Без пары,NEW,Описание,\n"
+                + "2,TASK,Сказать \"привет,DONE,Описание,\n"
+                + "3,TASK,\"Большой\" план,NEW,Описание \"с кавычками\",\n");
+
+        for (PersistenceConfig config : List.of(PersistenceConfig.snapshot(),
+                PersistenceConfig.snapshot().parallelLoad(4))) {
+            FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, config);
+
+            assertEquals(3, loadedManager.getAllTasks().size(), "Каждая строка - отдельная задача");
+            assertEquals("\"Без пары", loadedManager.getTaskById(1).getName(), "Кавычки читаются как есть");
+            assertEquals("Сказать \"привет", loadedManager.getTaskById(2).getName());
+            assertEquals("\"Большой\" план", loadedManager.getTaskById(3).getName());
+            assertEquals("Описание \"с кавычками\"", loadedManager.getTaskById(3).getDescription());
+        }
+    }
+
+    @Test
+    void legacyJournalWithUnescapedQuotesIsReplayedLineByLine() throws IOException {
+        manager.addTask(task);
+        File journalFile = new File(file.getPath() + ".journal");
+        Files.writeString(journalFile.toPath(), "PUT,2,TASK,\"Без пары,NEW,Описание,\n"
+                + "PUT,3,TASK,\"Большой\" план,NEW,Описание,\n"
+                + "PUT,4,TASK,Сказать \"привет,DONE,Описание,\n"
+                + "DELETE,TASK," + task.getId() + "\n");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.journal());
+
+        assertEquals(3, loadedManager.getAllTasks().size(), "Каждая строка журнала - отдельная запись");
+        assertEquals("\"Без пары", loadedManager.getTaskById(2).getName(), "Кавычки читаются как есть");
+        assertEquals("\"Большой\" план", loadedManager.getTaskById(3).getName());
+        assertEquals("Сказать \"привет", loadedManager.getTaskById(4).getName());
+        assertNull(loadedManager.getTaskById(task.getId()), "Удаление после записей со сбитыми кавычками применяется");
+    }
+
+    @Test
+    void deletedIdsAreNotReusedAfterReload() throws IOException {
+        List<PersistenceConfig> configs = List.of(PersistenceConfig.snapshot(),
+                PersistenceConfig.snapshot().serializer(new BinaryTaskSerializer()),
+                PersistenceConfig.journal(), PersistenceConfig.journal());
+        for (int i = 0; i < configs.size(); i++) {
+            PersistenceConfig config = configs.get(i);
+            File target = Files.createTempFile(tempDir, "ids", ".csv").toFile();
+            FileBackedTaskManager first = new FileBackedTaskManager(target, config);
+            first.addTask(new Task("Первая", "Описание"));
+            Task last = new Task("Последняя", "Описание");
+            first.addTask(last);
+            first.deleteTaskById(last.getId());
+            // Последний вариант: удаление уходит из журнала в снимок при уплотнении
+            if (i == configs.size() - 1) {
+                first.compact();
+            }
+            first.close();
+
+            FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(target, config);
+            Task added = new Task("Новая", "Описание");
+            reloaded.addTask(added);
+
+            assertEquals(last.getId() + 1, added.getId(), "id удаленной задачи не выдается повторно");
+            // Клиент дочитал страницу до удаленной задачи: следующая страница начинается после ее id
+            Iterator<TaskSnapshot> nextPage = reloaded.snapshot().getTasksFrom(last.getId() + 1);
+            assertEquals(added.getId(), nextPage.next().getId(), "Новая задача попадает на следующую страницу");
+        }
+
+        Files.writeString(file.toPath(), CSVTaskFormatter.getHeader(10) + "\n1,TASK,Задача,NEW,Описание,\n");
+        FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.snapshot().parallelLoad(4));
+        Task added = new Task("Новая", "Описание");
+        parallel.addTask(added);
+        assertEquals(10, added.getId(), "Параллельная загрузка читает следующий id из заголовка");
+    }
+
+    @Test
+    void parallelLoadMatchesSequentialLoad() {
+        FileBackedTaskManager batched = new FileBackedTaskManager(file, PersistenceConfig.snapshot().groupCommit(0, 100_000));
+        for (int i = 0; i < 500; i++) {
+            Epic bigEpic = new Epic("Эпик " + i, "Описание эпика " + i);
+            batched.addEpic(bigEpic);
+            for (int j = 0; j < 20; j++) {
+                Status status = j % 3 == 0 ? Status.DONE : Status.NEW;
+                batched.addSubtask(new Subtask("Подзадача " + j, "Описание,\n\"подзадачи\" " + j, status, bigEpic.getId()));
+            }
+            batched.addTask(new Task("Задача " + i, "Описание задачи " + i));
+        }
+        batched.close();
+        assertTrue(file.length() > 4 * ParallelSnapshotLoader.MIN_CHUNK_BYTES, "Файл должен делиться на несколько участков");
+
+        FileBackedTaskManager sequential = FileBackedTaskManager.loadFromFile(file);
+        FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.snapshot().parallelLoad(4));
+
+        assertEquals(sequential.getAllTasks(), parallel.getAllTasks(), "Задачи должны совпадать");
+        assertEquals(sequential.getAllSubtasks(), parallel.getAllSubtasks(), "Подзадачи должны совпадать");
+        assertEquals(sequential.getSubtaskById(3).getDescription(), parallel.getSubtaskById(3).getDescription(),
+                "Описание с переводом строки должно совпадать");
+        for (Epic loadedEpic : sequential.getAllEpics()) {
+            Epic parallelEpic = parallel.getEpicById(loadedEpic.getId());
+            assertEquals(loadedEpic.getSubtaskIds(), parallelEpic.getSubtaskIds(), "Порядок подзадач эпика сохраняется");
+            assertEquals(loadedEpic.getStatus(), parallelEpic.getStatus(), "Статус эпика должен совпадать");
+        }
+        assertEquals(sequential.search("описание подзадачи 7"), parallel.search("описание подзадачи 7"),
+                "Поиск после параллельной загрузки должен совпадать");
+        assertEquals(500, parallel.search("подзадачи 7").size(), "Индекс поиска строится при загрузке");
+        assertEquals(10_000, parallel.snapshot().getSubtasks().size(), "Версия доски строится при загрузке");
+    }
+
+    @Test
+    void binarySnapshotRoundTrip() {
+        PersistenceConfig config = PersistenceConfig.snapshot().serializer(new BinaryTaskSerializer());
+        FileBackedTaskManager binary = new FileBackedTaskManager(file, config);
+        binary.addTask(new Task("Задача, с запятой", null));
+        binary.addEpic(epic);
+        subtask.setEpicId(epic.getId());
+        binary.addSubtask(subtask);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, config);
+        Task loadedTask = loadedManager.getAllTasks().get(0);
+
+        assertEquals("Задача, с запятой", loadedTask.getName(), "Название сохраняется без искажений");
+        assertNull(loadedTask.getDescription(), "Пустое описание сохраняется как null");
+        assertEquals(epic.getId(), loadedManager.getSubtaskById(subtask.getId()).getEpicId(), "ID эпика должен совпадать");
+        assertEquals(Status.IN_PROGRESS, loadedManager.getEpicById(epic.getId()).getStatus(), "Статус эпика пересчитывается");
+    }
+
+    @Test
+    void convertBetweenCsvAndBinary() {
+        manager.addTask(task);
+        manager.addEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.addSubtask(subtask);
+
+        File binaryFile = new File(tempDir.toFile(), "tasks.bin");
+        File csvFile = new File(tempDir.toFile(), "tasks.csv");
+        TaskFileConverter.csvToBinary(file, binaryFile);
+        TaskFileConverter.binaryToCsv(binaryFile, csvFile);
+
+        assertTrue(binaryFile.length() < file.length(), "Двоичный файл компактнее текстового");
+        FileBackedTaskManager fromBinary = FileBackedTaskManager.loadFromFile(binaryFile,
+                PersistenceConfig.snapshot().serializer(new BinaryTaskSerializer()));
+        FileBackedTaskManager fromCsv = FileBackedTaskManager.loadFromFile(csvFile);
+
+        assertEquals(manager.getAllSubtasks(), fromBinary.getAllSubtasks(), "Подзадачи должны совпадать");
+        assertEquals(task.getName(), fromCsv.getTaskById(task.getId()).getName(), "Название задачи должно совпадать");
+        assertEquals(epic.getSubtaskIds(), fromCsv.getEpicById(epic.getId()).getSubtaskIds(), "Связи эпика сохраняются");
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(csvFile,
+                PersistenceConfig.snapshot().serializer(new BinaryTaskSerializer())), "CSV не читается как двоичный снимок");
+    }
+
+    @Test
+    void namesAndDescriptionsWithSeparatorsSurviveReload() {
+        String name = "Купить \"молоко\", хлеб";
+        String description = "Строка 1\nСтрока 2,\r\nСтрока 3";
+        manager.addTask(new Task(name, description));
+        FileBackedTaskManager journaled = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.journal());
+        journaled.addTask(new Task(name, description));
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.journal());
+
+        assertEquals(2, loadedManager.getAllTasks().size(), "Задачи из снимка и журнала должны загрузиться");
+        for (Task loadedTask : loadedManager.getAllTasks()) {
+            assertEquals(name, loadedTask.getName(), "Название с кавычками и запятой должно сохраниться");
+            assertEquals(description, loadedTask.getDescription(), "Описание с переводами строки должно сохраниться");
+        }
+    }
+
+    @Test
+    void startTimeAndDurationSurviveReload() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 30, 15);
+        for (PersistenceConfig config : List.of(PersistenceConfig.snapshot(),
+                PersistenceConfig.snapshot().serializer(new BinaryTaskSerializer()), PersistenceConfig.journal())) {
+            file.delete();
+            new File(file.getPath() + ".journal").delete();
+            FileBackedTaskManager saved = new FileBackedTaskManager(file, config);
+            Task scheduled = new Task("Задача", "Описание", start.minusYears(60), Duration.ofSeconds(5, 7));
+            saved.addTask(scheduled);
+            saved.addTask(new Task("Без времени", "Описание"));
+            Epic parent = new Epic("Эпик", "Описание");
+            saved.addEpic(parent);
+            Subtask timed = new Subtask("Подзадача", "Описание", Status.NEW, parent.getId(), start, Duration.ofMinutes(45));
+            saved.addSubtask(timed);
+            saved.addSubtask(new Subtask("Подзадача без времени", "Описание", Status.NEW, parent.getId(), null,
+                    Duration.ofMinutes(15)));
+            saved.close();
+
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, config);
+            Task loadedTask = loaded.getTaskById(scheduled.getId());
+            assertEquals(scheduled.getStartTime(), loadedTask.getStartTime(), "Время начала сохраняется");
+            assertEquals(scheduled.getDuration(), loadedTask.getDuration(), "Продолжительность сохраняется");
+            assertEquals(List.of(loadedTask, loaded.getSubtaskById(timed.getId())), loaded.getPrioritizedTasks(),
+                    "Расписание строится при загрузке");
+            Epic loadedEpic = loaded.getEpicById(parent.getId());
+            assertEquals(start, loadedEpic.getStartTime(), "Время эпика вычисляется после загрузки");
+            assertEquals(Duration.ofHours(1), loadedEpic.getDuration());
+            assertEquals(start.plusMinutes(45), loadedEpic.getEndTime());
+            assertThrows(TaskOverlapException.class, () -> loaded.addTask(
+                    new Task("Пересекается", "Описание", start.plusMinutes(10), Duration.ofMinutes(10))));
+            loaded.close();
+        }
+    }
+
+    @Test
+    void csvTimeColumnsAreOptional() {
+        Task task = CSVTaskFormatter.fromString("1,TASK,Задача,NEW,Описание");
+        assertNull(task.getStartTime(), "Строка старого формата без поля эпика читается");
+
+        Subtask subtask = (Subtask) CSVTaskFormatter.fromString("2,SUBTASK,Подзадача,DONE,Описание,1,2024-03-01T09:00,");
+        assertEquals(LocalDateTime.of(2024, 3, 1, 9, 0), subtask.getStartTime());
+        assertNull(subtask.getDuration(), "Пустое поле - продолжительность не задана");
+        assertEquals("2,SUBTASK,Подзадача,DONE,Описание,1,2024-03-01T09:00,", CSVTaskFormatter.toString(subtask));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> CSVTaskFormatter.fromString("1,TASK,Задача,NEW,Описание,,вчера,PT1H"));
+    }
+
+    @Test
+    void journalModeAppendsRecordsInsteadOfRewritingSnapshot() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, PersistenceConfig.journal());
+        journaled.addTask(task);
+        String snapshot = Files.readString(file.toPath());
+
+        journaled.addEpic(epic);
+        subtask.setEpicId(epic.getId());
+        journaled.addSubtask(subtask);
+
+        File journalFile = new File(file.getPath() + ".journal");
+        assertEquals(snapshot, Files.readString(file.toPath()), "Снимок не должен перезаписываться в режиме журнала");
+        assertEquals(2, Files.readAllLines(journalFile.toPath()).size(), "Каждое изменение добавляет одну запись");
+    }
+
+    @Test
+    void journalModeReplaysSnapshotAndJournal() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, PersistenceConfig.journal());
+        journaled.addTask(task);
+        journaled.addEpic(epic);
+        subtask.setEpicId(epic.getId());
+        journaled.addSubtask(subtask);
+
+        subtask.setStatus(Status.DONE);
+        journaled.updateSubtask(subtask);
+        journaled.deleteTaskById(task.getId());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.journal());
+
+        assertNull(loadedManager.getTaskById(task.getId()), "Удаление из журнала должно примениться");
+        assertEquals(Status.DONE, loadedManager.getSubtaskById(subtask.getId()).getStatus(), "Статус подзадачи из журнала");
+        assertEquals(Status.DONE, loadedManager.getEpicById(epic.getId()).getStatus(), "Статус эпика пересчитывается");
+        assertTrue(loadedManager.getEpicById(epic.getId()).getSubtaskIds().contains(subtask.getId()),
+                "Подзадача должна быть связана с эпиком");
+
+        Task newTask = new Task("Новая задача", "Описание");
+        loadedManager.addTask(newTask);
+        assertEquals(subtask.getId() + 1, newTask.getId(), "ID продолжает последовательность");
+    }
+
+    @Test
+    void journalModeReplaysClear() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, PersistenceConfig.journal());
+        journaled.addEpic(epic);
+        subtask.setEpicId(epic.getId());
+        journaled.addSubtask(subtask);
+        journaled.clearSubtasks();
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.journal());
+
+        assertTrue(loadedManager.getAllSubtasks().isEmpty(), "Подзадачи должны быть удалены");
+        assertTrue(loadedManager.getEpicById(epic.getId()).getSubtaskIds().isEmpty(), "Эпик не должен ссылаться на подзадачи");
+    }
+
+    @Test
+    void batchIsJournaledOnceAndDroppedIfIncomplete() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, PersistenceConfig.journal());
+        journaled.addTask(task);
+        journaled.batch(ops -> {
+            ops.addEpic(epic);
+            for (int i = 0; i < 100; i++) {
+                ops.addSubtask(new Subtask("Подзадача " + i, "Описание", Status.DONE, epic.getId()));
+            }
+            ops.deleteTaskById(task.getId());
+        });
+
+        File journalFile = new File(file.getPath() + ".journal");
+        List<String> lines = Files.readAllLines(journalFile.toPath());
+        assertEquals(103, lines.size(), "Заголовок пакета и по записи на каждое изменение");
+        assertEquals("BATCH,102", lines.get(0), "Пакет начинается с числа записей");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.journal());
+        assertEquals(100, loadedManager.getSubtasksByEpicId(epic.getId()).size(), "Пакет применяется целиком");
+        assertEquals(Status.DONE, loadedManager.getEpicById(epic.getId()).getStatus(), "Статус эпика пересчитывается");
+        assertTrue(loadedManager.getAllTasks().isEmpty(), "Удаление из пакета применяется");
+
+        // Сбой посреди записи пакета: на диске только его начало
+        Files.write(journalFile.toPath(), lines.subList(0, 50));
+        FileBackedTaskManager recovered = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.journal());
+
+        assertEquals(List.of(task), recovered.getAllTasks(), "Недописанный пакет не применяется");
+        assertTrue(recovered.getAllEpics().isEmpty(), "Недописанный пакет не применяется");
+    }
+
+    @Test
+    void batchFailingMidwayPersistsAppliedOperations() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, PersistenceConfig.journal()) {
+            @Override
+            public void deleteTaskById(int id) {
+                throw new IllegalStateException("Сбой при применении пакета");
+            }
+        };
+        journaled.addTask(task);
+        Task added = new Task("Из пакета", "Описание");
+
+        assertThrows(IllegalStateException.class, () -> journaled.batch(ops -> {
+            ops.addTask(added);
+            ops.deleteTaskById(task.getId());
+        }));
+        assertEquals(2, journaled.getAllTasks().size(), "Операция до сбоя применена в памяти");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.journal());
+        assertEquals(journaled.getAllTasks(), loadedManager.getAllTasks(), "Файл совпадает с состоянием в памяти");
+    }
+
+    @Test
+    void snapshotSaveDiscardsJournal() {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, PersistenceConfig.journal());
+        journaled.addTask(task);
+        journaled.addEpic(epic);
+
+        FileBackedTaskManager snapshotManager = FileBackedTaskManager.loadFromFile(file);
+        snapshotManager.deleteEpicById(epic.getId());
+
+        assertFalse(new File(file.getPath() + ".journal").exists(), "Журнал должен быть удален после полного снимка");
+        assertTrue(FileBackedTaskManager.loadFromFile(file).getAllEpics().isEmpty(), "Эпик должен быть удален");
+    }
+
+    @Test
+    void compactMergesJournalIntoSnapshot() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, PersistenceConfig.journal());
+        journaled.addTask(task);
+        journaled.addEpic(epic);
+        journaled.deleteTaskById(task.getId());
+
+        journaled.compact();
+
+        File journalFile = new File(file.getPath() + ".journal");
+        assertFalse(journalFile.exists(), "Журнал должен быть пуст после уплотнения");
+        assertFalse(new File(journalFile.getPath() + ".old").exists(), "Запечатанный журнал должен быть удален");
+        assertTrue(Files.readString(file.toPath()).contains(epic.getName()), "Снимок должен содержать эпик");
+
+        journaled.addTask(new Task("После уплотнения", "Описание"));
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.journal());
+
+        assertEquals(1, loadedManager.getAllTasks().size(), "Задача после уплотнения должна сохраниться");
+        assertEquals(1, loadedManager.getAllEpics().size(), "Эпик должен сохраниться");
+    }
+
+    @Test
+    void compactedSnapshotMatchesJournaledState() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, PersistenceConfig.journal());
+        journaled.addTask(task);
+        journaled.addEpic(epic);
+        Epic removed = new Epic("Удаляемый эпик", "Описание");
+        journaled.addEpic(removed);
+        journaled.addSubtask(new Subtask("Подзадача удаляемого", "Описание", Status.NEW, removed.getId()));
+        Subtask done = new Subtask("Готовая", "Описание", Status.DONE, epic.getId());
+        journaled.addSubtask(done);
+        Subtask last = new Subtask("Последняя", "Описание", Status.NEW, epic.getId());
+        journaled.addSubtask(last);
+        journaled.deleteEpicById(removed.getId());
+        journaled.deleteSubtaskById(last.getId());
+
+        journaled.compact();
+
+        List<Task> stored = new ArrayList<>();
+        int[] nextId = new int[1];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            new CSVTaskSerializer().read(in, id -> nextId[0] = id, stored::add);
+        }
+        assertEquals(List.of(task.getId(), epic.getId(), done.getId()),
+                stored.stream().map(Task::getId).collect(Collectors.toList()),
+                "Снимок должен содержать только живые задачи");
+        assertEquals(Status.DONE, stored.get(1).getStatus(), "Статус эпика должен быть пересчитан по подзадачам");
+        assertEquals(Integer.valueOf(last.getId() + 1), Integer.valueOf(nextId[0]),
+                "Снимок должен сохранить счетчик id с учетом удаленных задач");
+    }
+
+    @Test
+    void compactionStartsWhenJournalExceedsRecordThreshold() {
+        PersistenceConfig config = PersistenceConfig.journal().compactAfter(0, 3);
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, config);
+        for (int i = 0; i < 10; i++) {
+            journaled.addTask(new Task("Задача " + i, "Описание"));
+        }
+        journaled.compact();
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, config);
+
+        assertEquals(10, loadedManager.getAllTasks().size(), "Все задачи должны пережить уплотнение");
+    }
+
+    @Test
+    void loadReplaysLeftoverSealedJournal() throws IOException {
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, PersistenceConfig.journal());
+        journaled.addTask(task);
+        journaled.addEpic(epic);
+
+        // Имитируем сбой: журнал запечатан, но снимок еще не перезаписан
+        File journalFile = new File(file.getPath() + ".journal");
+        Files.move(journalFile.toPath(), new File(journalFile.getPath() + ".old").toPath());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(file, PersistenceConfig.journal());
+
+        assertNotNull(loadedManager.getEpicById(epic.getId()), "Эпик из запечатанного журнала должен загрузиться");
+    }
+
+    @Test
+    void groupCommitCoalescesJournalWritesUntilFlush() throws IOException {
+        PersistenceConfig config = PersistenceConfig.journal().groupCommit(0, 1000);
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, config);
+        journaled.addEpic(epic);
+        for (int i = 0; i < 10; i++) {
+            journaled.addSubtask(new Subtask("Подзадача " + i, "Описание", Status.NEW, epic.getId()));
+        }
+
+        File journalFile = new File(file.getPath() + ".journal");
+        assertFalse(journalFile.exists(), "До сброса записи должны оставаться в буфере");
+
+        journaled.flush();
+
+        assertEquals(10, Files.readAllLines(journalFile.toPath()).size(), "Пачка должна записаться целиком");
+        assertEquals(10, FileBackedTaskManager.loadFromFile(file, config).getAllSubtasks().size());
+    }
+
+    @Test
+    void groupCommitFlushesAfterWindow() throws Exception {
+        PersistenceConfig config = PersistenceConfig.journal().groupCommit(5, 1000).durability(Durability.FSYNC);
+        try (FileBackedTaskManager journaled = new FileBackedTaskManager(file, config)) {
+            journaled.addTask(task);
+            journaled.addTask(new Task("Вторая", "Описание"));
+
+            File journalFile = new File(file.getPath() + ".journal");
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!journalFile.exists() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+
+            assertTrue(journalFile.exists(), "Журнал должен сброситься по истечении окна");
+        }
+
+        assertEquals(2, FileBackedTaskManager.loadFromFile(file, config).getAllTasks().size());
+    }
+
+    @Test
+    void groupCommitInSnapshotModeSavesEveryNthOperation() {
+        PersistenceConfig config = PersistenceConfig.snapshot().groupCommit(0, 3);
+        FileBackedTaskManager batched = new FileBackedTaskManager(file, config);
+
+        batched.addTask(new Task("Задача 1", "Описание"));
+        batched.addTask(new Task("Задача 2", "Описание"));
+        assertTrue(FileBackedTaskManager.loadFromFile(file).getAllTasks().isEmpty(), "Снимок еще не записан");
+
+        batched.addTask(new Task("Задача 3", "Описание"));
+        assertEquals(3, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(), "Снимок записан пачкой");
+
+        batched.addTask(new Task("Задача 4", "Описание"));
+        batched.close();
+        assertEquals(4, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(), "close сохраняет остаток");
+    }
+}
@@ -189,4 +189,54 @@ class InMemoryHistoryManagerTest {
         assertEquals(List.of(task2, task1, task3), historyManager.getHistory(),
                 "После повторного добавления task3 порядок должен быть [2, 1, 3]");
     }
-}
\ No newline at end of file
+
+    @Test
+    void boundedHistoryEvictsLeastRecentlyViewed() {
+        HistoryManager bounded = Managers.getDefaultHistory(2);
+
+        bounded.add(task1); // [1]
+        bounded.add(task2); // [1, 2]
+        bounded.add(task1); // [2, 1]
+        bounded.add(task3); // [1, 3] - task2 вытеснена
+
+        assertEquals(List.of(task1, task3), bounded.getHistory(), "Должны остаться два последних просмотра");
+
+        bounded.remove(task1.getId()); // [3]
+        bounded.add(task2); // [3, 2]
+
+        assertEquals(List.of(task3, task2), bounded.getHistory(), "Удаление освобождает место в истории");
+    }
+
+    @Test
+    void getHistoryWithLimitReturnsMostRecent() {
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+
+        assertEquals(List.of(task2, task3), historyManager.getHistory(2), "Два последних просмотра по порядку");
+        assertEquals(List.of(task1, task2, task3), historyManager.getHistory(10), "Лимит больше размера истории");
+        assertTrue(historyManager.getHistory(0).isEmpty(), "Нулевой лимит - пустой список");
+    }
+
+    @Test
+    void removeAllOfTypeKeepsOrderOfOtherTasks() {
+        Epic epic = new Epic("Эпик", "Описание");
+        epic.setId(4);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Status.NEW, 4);
+        subtask.setId(5);
+        historyManager.add(task1);
+        historyManager.add(epic);
+        historyManager.add(task2);
+        historyManager.add(subtask);
+        historyManager.add(task3);
+
+        historyManager.removeAllOfType(TaskType.TASK);
+
+        assertEquals(List.of(epic, subtask), historyManager.getHistory(), "Удаляются только задачи указанного типа");
+
+        historyManager.removeIf(task -> task.getId() == 5);
+        historyManager.add(task1);
+
+        assertEquals(List.of(epic, task1), historyManager.getHistory(), "После удаления история продолжает работать");
+    }
+}
@@ -4,7 +4,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import tasks.*;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -245,4 +247,41 @@ class InMemoryTaskManagerAdditionalTest {
         assertNotNull(taskManager.getTaskById(task.getId()), "Существующая задача должна остаться");
         assertEquals(1, taskManager.getHistory().size(), "История не должна измениться");
     }
-}
\ No newline at end of file
+
+    @Test
+    void epicStatusCountersStayConsistentWithFullRecount() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        Random random = new Random(42);
+        List<Subtask> added = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            Status status = Status.values()[random.nextInt(Status.values().length)];
+            int action = random.nextInt(4);
+            if (action == 0 || added.isEmpty()) {
+                Subtask subtask = new Subtask("Подзадача " + i, "Описание", status, epic.getId());
+                manager.addSubtask(subtask);
+                added.add(subtask);
+            } else if (action == 1) {
+                Subtask subtask = added.get(random.nextInt(added.size()));
+                subtask.setStatus(status);
+                manager.updateSubtask(subtask);
+            } else if (action == 2) {
+                Subtask old = added.get(random.nextInt(added.size()));
+                Subtask replacement = new Subtask(old.getName(), old.getDescription(), status, epic.getId());
+                replacement.setId(old.getId());
+                manager.updateSubtask(replacement);
+            } else {
+                manager.deleteSubtaskById(added.remove(random.nextInt(added.size())).getId());
+            }
+
+            assertTrue(manager.isEpicStatusConsistent(), "Счетчики статусов расходятся с пересчетом на шаге " + i);
+        }
+
+        Epic replacement = new Epic("Новое название", "Описание");
+        replacement.setId(epic.getId());
+        manager.updateEpic(replacement);
+        assertTrue(manager.isEpicStatusConsistent(), "Счетчики переносятся в обновленный эпик");
+    }
+}
@@ -4,6 +4,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import tasks.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -151,4 +155,330 @@ class InMemoryTaskManagerTest {
         assertEquals(task, history.get(0), "Первым элементом истории должна быть задача");
         assertEquals(epic, history.get(1), "Вторым элементом истории должен быть эпик");
     }
-}
\ No newline at end of file
+
+    @Test
+    void viewsAreLiveAndReadOnly() {
+        Collection<Task> view = taskManager.getTasksView();
+        Task task = new Task("Тестовая задача", "Описание тестовой задачи");
+        taskManager.addTask(task);
+
+        assertEquals(List.of(task), new ArrayList<>(view), "Представление отражает добавленную задачу");
+        assertThrows(UnsupportedOperationException.class, view::clear, "Представление нельзя изменить");
+
+        taskManager.deleteTaskById(task.getId());
+        assertTrue(view.isEmpty(), "Представление отражает удаление");
+    }
+
+    @Test
+    void pagingAndStreaming() {
+        for (int i = 1; i <= 10; i++) {
+            taskManager.addTask(new Task("Задача " + i, "Описание"));
+        }
+
+        List<Task> page = taskManager.getAllTasks(3, 4);
+
+        assertEquals(List.of(4, 5, 6, 7), page.stream().map(Task::getId).toList(), "Страница начинается со смещения");
+        assertEquals(2, taskManager.getAllTasks(8, 5).size(), "Последняя страница может быть неполной");
+        assertTrue(taskManager.getAllTasks(20, 5).isEmpty(), "Страница за концом списка пустая");
+        assertEquals(10, taskManager.streamTasks().count(), "Поток содержит все задачи");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getAllTasks(-1, 5));
+    }
+
+    @Test
+    void getTasksByStatusFollowsUpdatesAndDerivedEpicStatus() {
+        Task task = new Task("Задача", "Описание");
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addTask(task);
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Status.NEW, epic.getId());
+        taskManager.addSubtask(subtask);
+
+        assertEquals(List.of(task), taskManager.getTasksByStatus(Status.NEW, TaskType.TASK));
+        assertEquals(List.of(epic), taskManager.getTasksByStatus(Status.NEW, TaskType.EPIC));
+
+        task.setStatus(Status.IN_PROGRESS);
+        taskManager.updateTask(task);
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+
+        assertEquals(List.of(task), taskManager.getTasksByStatus(Status.IN_PROGRESS, TaskType.TASK), "Задача переносится по статусу");
+        assertTrue(taskManager.getTasksByStatus(Status.NEW, TaskType.TASK).isEmpty(), "Старый статус очищается");
+        assertEquals(List.of(subtask), taskManager.getTasksByStatus(Status.DONE, TaskType.SUBTASK));
+        assertEquals(List.of(epic), taskManager.getTasksByStatus(Status.DONE, TaskType.EPIC), "Вычисленный статус эпика индексируется");
+
+        taskManager.clearSubtasks();
+
+        assertTrue(taskManager.getTasksByStatus(Status.DONE, TaskType.SUBTASK).isEmpty(), "Очистка удаляет подзадачи из индекса");
+        assertEquals(List.of(epic), taskManager.getTasksByStatus(Status.NEW, TaskType.EPIC), "Эпик без подзадач снова NEW");
+    }
+
+    @Test
+    void searchMatchesPrefixesOfAllWordsAndRanksByRelevance() {
+        Task report = new Task("Отчёт за квартал", "Собрать цифры для отчета");
+        Task meeting = new Task("Встреча", "Обсудить квартальный ОТЧЕТ");
+        Epic release = new Epic("Релиз 2.0", "Подготовка релиза");
+        taskManager.addTask(report);
+        taskManager.addTask(meeting);
+        taskManager.addEpic(release);
+        Subtask notes = new Subtask("Заметки к релизу", "Квартал закрыт", Status.NEW, release.getId());
+        taskManager.addSubtask(notes);
+
+        assertEquals(List.of(report, meeting), taskManager.search("отчет"),
+                "Регистр и \"ё\" не важны, совпадение в названии весит больше");
+        assertEquals(List.of(report, meeting), taskManager.search("квартал отч"), "Все слова запроса ищутся как префиксы");
+        assertEquals(List.of(release, notes), taskManager.search("релиз"), "Ищутся задачи всех видов");
+        assertTrue(taskManager.search("релиз отчет").isEmpty(), "Слова запроса объединяются по И");
+        assertTrue(taskManager.search(" , ").isEmpty(), "Запрос без слов ничего не находит");
+
+        meeting.setName("Созвон");
+        meeting.setDescription("Без повестки");
+        taskManager.updateTask(meeting);
+        taskManager.deleteEpicById(release.getId());
+
+        assertEquals(List.of(report), taskManager.search("отчет"), "Обновление задачи меняет индекс");
+        assertEquals(List.of(meeting), taskManager.search("повестк"));
+        assertTrue(taskManager.search("релиз").isEmpty(), "Удаленный эпик и его подзадачи не находятся");
+
+        taskManager.clearTasks();
+
+        assertTrue(taskManager.search("отчет").isEmpty(), "Очистка удаляет задачи из индекса");
+
+        Epic other = new Epic("Квартальный план", "Описание");
+        taskManager.addEpic(other);
+        taskManager.addSubtask(new Subtask("Квартальный итог", "Описание", Status.NEW, other.getId()));
+        taskManager.clearSubtasks();
+        assertEquals(List.of(other), taskManager.search("квартальн"), "Очистка вида не трогает задачи других видов");
+    }
+
+    @Test
+    void snapshotsAreDetachedFromManagerState() {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Status.NEW, epic.getId());
+        taskManager.addSubtask(subtask);
+
+        SubtaskSnapshot snapshot = (SubtaskSnapshot) taskManager.getSnapshot(subtask.getId());
+        taskManager.updateSubtask(snapshot.withStatus(Status.DONE).toTask());
+
+        assertEquals(Status.NEW, snapshot.getStatus(), "Обновление не меняет выданный снимок");
+        assertEquals(Status.DONE, taskManager.getSnapshot(subtask.getId()).getStatus());
+        assertEquals(Status.DONE, taskManager.getSnapshot(epic.getId()).getStatus(), "Статус эпика пересчитывается");
+        assertSame(taskManager.getSnapshot(epic.getId()), taskManager.getSnapshot(epic.getId()),
+                "Неизменившаяся задача отдается без копирования");
+        assertEquals(List.of(taskManager.getSnapshot(subtask.getId())), taskManager.getSnapshots(TaskType.SUBTASK));
+        assertNull(taskManager.getSnapshot(100), "Несуществующая задача");
+        assertTrue(taskManager.getHistory().isEmpty(), "Снимки не попадают в историю");
+    }
+
+    @Test
+    void boardSnapshotIsFrozenAtOneInstant() {
+        Task task = new Task("Задача", "Описание");
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addTask(task);
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Status.DONE, epic.getId());
+        taskManager.addSubtask(subtask);
+
+        BoardSnapshot before = taskManager.snapshot();
+
+        assertSame(before, taskManager.snapshot(), "Без изменений отдается та же версия");
+
+        taskManager.deleteTaskById(task.getId());
+        taskManager.addSubtask(new Subtask("Вторая", "Описание", Status.NEW, epic.getId()));
+        BoardSnapshot after = taskManager.snapshot();
+
+        assertTrue(after.getVersion() > before.getVersion(), "Изменения дают новую версию");
+        assertEquals(task.getId(), before.getTask(task.getId()).getId(), "Старая версия видит удаленную задачу");
+        assertEquals(Status.DONE, before.getEpic(epic.getId()).getStatus(), "Старая версия видит прежний статус эпика");
+        assertEquals(List.of(subtask.snapshot()), before.getSubtasksByEpicId(epic.getId()));
+        assertTrue(after.getTasks().isEmpty());
+        assertEquals(Status.IN_PROGRESS, after.getEpic(epic.getId()).getStatus());
+        assertEquals(2, after.getSubtasksByEpicId(epic.getId()).size());
+
+        taskManager.clearEpics();
+
+        assertTrue(taskManager.snapshot().getSubtasks().isEmpty(), "Подзадачи удаляются вместе с эпиками");
+        assertEquals(2, after.getSubtasks().size(), "Выданная версия не меняется");
+    }
+
+    @Test
+    void batchAppliesAllChangesAfterOperationsComplete() {
+        Epic epic = new Epic("Эпик", "Описание");
+        List<Subtask> imported = new ArrayList<>();
+
+        taskManager.batch(ops -> {
+            ops.addEpic(epic);
+            for (int i = 0; i < 1000; i++) {
+                Subtask subtask = new Subtask("Подзадача " + i, "Описание", i == 0 ? Status.NEW : Status.DONE, epic.getId());
+                ops.addSubtask(subtask);
+                imported.add(subtask);
+            }
+            assertTrue(taskManager.getAllEpics().isEmpty(), "До завершения пакета изменения не видны");
+        });
+
+        assertEquals(1000, taskManager.getSubtasksByEpicId(epic.getId()).size(), "Все подзадачи пакета добавлены");
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpicById(epic.getId()).getStatus(), "Статус эпика пересчитан");
+        assertEquals(List.of(epic), taskManager.getTasksByStatus(Status.IN_PROGRESS, TaskType.EPIC));
+
+        Subtask first = imported.get(0);
+        first.setStatus(Status.DONE);
+        taskManager.batch(ops -> {
+            ops.updateSubtask(first);
+            ops.deleteSubtaskById(imported.get(1).getId());
+        });
+
+        assertEquals(Status.DONE, taskManager.snapshot().getEpic(epic.getId()).getStatus(), "Версия доски получает статус эпика");
+        assertEquals(999, taskManager.getSubtasksByEpicId(epic.getId()).size());
+
+        assertThrows(IllegalStateException.class, () -> taskManager.batch(ops -> {
+            ops.deleteEpicById(epic.getId());
+            throw new IllegalStateException("Ошибка импорта");
+        }));
+
+        assertNotNull(taskManager.getEpicById(epic.getId()), "Прерванный пакет ничего не меняет");
+        assertEquals(999, taskManager.getAllSubtasks().size(), "Прерванный пакет ничего не меняет");
+    }
+
+    @Test
+    void clearOperationsRemoveOnlyTheirTypesFromHistory() {
+        Task task = new Task("Задача", "Описание");
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addTask(task);
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Status.DONE, epic.getId());
+        taskManager.addSubtask(subtask);
+        taskManager.getSubtaskById(subtask.getId());
+        taskManager.getTaskById(task.getId());
+        taskManager.getEpicById(epic.getId());
+
+        taskManager.clearSubtasks();
+
+        assertEquals(List.of(task, epic), taskManager.getHistory(), "Очистка подзадач не трогает другие просмотры");
+        assertEquals(Status.NEW, taskManager.getEpicById(epic.getId()).getStatus(), "Эпик без подзадач - NEW");
+        assertEquals(List.of(epic), taskManager.getTasksByStatus(Status.NEW, TaskType.EPIC));
+        assertTrue(taskManager.getTasksByStatus(Status.DONE, TaskType.EPIC).isEmpty());
+
+        taskManager.clearEpics();
+
+        assertEquals(List.of(task), taskManager.getHistory(), "Очистка эпиков удаляет их из истории");
+
+        taskManager.clearTasks();
+
+        assertTrue(taskManager.getHistory().isEmpty(), "История пуста после очистки задач");
+    }
+
+    @Test
+    void prioritizedTasksFollowStartTimeAndRejectOverlaps() {
+        LocalDateTime nine = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Task late = new Task("Поздняя", "Описание", nine.plusHours(2), Duration.ofHours(1));
+        Task early = new Task("Ранняя", "Описание", nine, Duration.ofMinutes(90));
+        Task unscheduled = new Task("Без времени", "Описание");
+        taskManager.addTask(late);
+        taskManager.addTask(early);
+        taskManager.addTask(unscheduled);
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addEpic(epic);
+        Subtask between = new Subtask("Подзадача", "Описание", Status.NEW, epic.getId(), nine.plusMinutes(90),
+                Duration.ofMinutes(30));
+        taskManager.addSubtask(between);
+
+        assertEquals(List.of(early, between, late), taskManager.getPrioritizedTasks(),
+                "Задачи без времени и эпики в расписание не попадают");
+
+        Task overlapping = new Task("Пересекается", "Описание", nine.plusMinutes(30), Duration.ofMinutes(10));
+        TaskOverlapException e = assertThrows(TaskOverlapException.class, () -> taskManager.addTask(overlapping));
+        assertEquals(early.getId(), e.getConflictingId(), "Исключение указывает на пересекающуюся задачу");
+        assertEquals(0, overlapping.getId(), "Отклоненная задача не получает id");
+        assertEquals(3, taskManager.getAllTasks().size(), "Отклоненная задача не добавляется");
+
+        Task moved = new Task("Поздняя", "Описание", nine.plusHours(1), Duration.ofMinutes(45));
+        moved.setId(late.getId());
+        assertThrows(TaskOverlapException.class, () -> taskManager.updateTask(moved));
+        assertSame(late, taskManager.getTaskById(late.getId()), "Обновление с пересечением не применяется");
+
+        moved.setStartTime(nine.plusHours(5));
+        taskManager.updateTask(moved);
+        taskManager.deleteSubtaskById(between.getId());
+        assertEquals(List.of(early, moved), taskManager.getPrioritizedTasks(), "Расписание следует за изменениями");
+
+        taskManager.clearTasks();
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+    }
+
+    @Test
+    void epicTimeIsDerivedFromSubtasks() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addEpic(epic);
+        Subtask first = new Subtask("Первая", "Описание", Status.NEW, epic.getId(), start, Duration.ofHours(1));
+        Subtask second = new Subtask("Вторая", "Описание", Status.NEW, epic.getId(), start.plusHours(3),
+                Duration.ofMinutes(30));
+        Subtask third = new Subtask("Без времени", "Описание", Status.NEW, epic.getId());
+        taskManager.addSubtask(first);
+        taskManager.addSubtask(second);
+        taskManager.addSubtask(third);
+
+        assertEquals(start, epic.getStartTime(), "Начало эпика - начало самой ранней подзадачи");
+        assertEquals(Duration.ofMinutes(90), epic.getDuration(), "Продолжительность - сумма продолжительностей");
+        assertEquals(start.plusMinutes(210), epic.getEndTime(), "Конец - конец самой поздней подзадачи");
+        assertEquals(start.plusMinutes(210), taskManager.snapshot().getEpic(epic.getId()).getEndTime(),
+                "Время эпика попадает в версию доски");
+
+        taskManager.deleteSubtaskById(first.getId());
+        assertEquals(start.plusHours(3), epic.getStartTime());
+        assertEquals(Duration.ofMinutes(30), epic.getDuration());
+
+        Epic renamed = new Epic("Новое название", "Описание");
+        renamed.setId(epic.getId());
+        taskManager.updateEpic(renamed);
+        assertEquals(start.plusHours(3), taskManager.getEpicById(epic.getId()).getStartTime(),
+                "Время сохраняется при обновлении эпика");
+
+        taskManager.clearSubtasks();
+        assertNull(renamed.getStartTime(), "Эпик без подзадач не имеет времени");
+        assertNull(renamed.getDuration());
+        assertNull(renamed.getEndTime());
+    }
+
+    @Test
+    void clearingSubtaskTimeInPlaceRefreshesEpicAndSchedule() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", Status.NEW, epic.getId(), start, Duration.ofHours(1));
+        taskManager.addSubtask(subtask);
+
+        // Хранимый объект меняется на месте: старой и новой версией в update оказывается один объект
+        Subtask stored = taskManager.getSubtaskById(subtask.getId());
+        stored.setStartTime(null);
+        stored.setDuration(null);
+        taskManager.updateSubtask(stored);
+
+        assertNull(epic.getStartTime(), "Время эпика пересчитывается по новому времени подзадачи");
+        assertNull(epic.getDuration());
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "Подзадача без времени уходит из расписания");
+        taskManager.addTask(new Task("Задача", "Описание", start, Duration.ofHours(1)));
+        assertEquals(1, taskManager.getPrioritizedTasks().size(), "Освобожденное время можно занять");
+    }
+
+    @Test
+    void batchWithOverlapIsRejectedWhole() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Task existing = new Task("Задача", "Описание", start, Duration.ofHours(1));
+        taskManager.addTask(existing);
+
+        assertThrows(TaskOverlapException.class, () -> taskManager.batch(ops -> {
+            ops.addTask(new Task("Свободное время", "Описание", start.plusHours(2), Duration.ofHours(1)));
+            ops.addTask(new Task("Пересекается с предыдущей", "Описание", start.plusMinutes(150), Duration.ofHours(1)));
+        }));
+        assertEquals(List.of(existing), taskManager.getPrioritizedTasks(), "Прерванный пакет ничего не меняет");
+
+        // Освобожденное в пакете время можно занять в том же пакете
+        Task replacement = new Task("Замена", "Описание", start, Duration.ofHours(1));
+        taskManager.batch(ops -> {
+            ops.deleteTaskById(existing.getId());
+            ops.addTask(replacement);
+        });
+        assertEquals(List.of(replacement), taskManager.getPrioritizedTasks());
+    }
+}
@@ -0,0 +1,155 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedTaskManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void histogramBucketsKeepRelativeError() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.lowerBound(index) <= value && value <= LatencyHistogram.upperBound(index),
+                    "Значение " + value + " должно попадать в границы своей корзины");
+            assertTrue(LatencyHistogram.upperBound(index) - LatencyHistogram.lowerBound(index) <= value / 16,
+                    "Ширина корзины не больше 1/16 значения: " + value);
+        }
+    }
+
+    @Test
+    void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("op");
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        OperationStats stats = histogram.stats();
+        assertEquals(1_000, stats.getCount());
+        assertEquals(500_500, stats.getMeanNanos(), "Среднее считается точно");
+        assertEquals(1_000_000, stats.getMaxNanos(), "Максимум считается точно");
+        assertEquals(500_000, stats.getP50Nanos(), 500_000 / 16.0, "Медиана с погрешностью корзины");
+        assertEquals(990_000, stats.getP99Nanos(), 990_000 / 16.0, "99-й процентиль с погрешностью корзины");
+        assertTrue(stats.getP999Nanos() <= stats.getMaxNanos(), "Процентиль не превышает максимум");
+
+        histogram.reset();
+        assertEquals(0, histogram.stats().getCount(), "После сброса гистограмма пуста");
+        assertEquals(0, histogram.stats().getP99Nanos());
+    }
+
+    @Test
+    void countsOperationsAndBoardSize() {
+        InstrumentedTaskManager manager = Managers.getInstrumented(Managers.getDefault());
+
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача 1", "Описание", Status.NEW, epic.getId()));
+        manager.addSubtask(new Subtask("Подзадача 2", "Описание", Status.DONE, epic.getId()));
+        manager.addTask(new Task("Задача", "Описание"));
+        manager.getEpicById(epic.getId());
+        manager.deleteEpicById(epic.getId());
+
+        MetricsSnapshot snapshot = manager.getMetrics().snapshot();
+        assertEquals(2, snapshot.getOperation("addSubtask").getCount(), "Два добавления подзадач");
+        assertEquals(1, snapshot.getOperation("addEpic").getCount());
+        assertEquals(1, snapshot.getOperation("getEpicById").getCount());
+        assertEquals(1, snapshot.getOperation("deleteEpicById").getCount());
+        assertEquals(0, snapshot.getOperation("clearTasks").getCount(), "Невызванные операции с нулевым счетчиком");
+        assertEquals(1, snapshot.getTaskCount(), "Размеры доски читаются из обернутого менеджера");
+        assertEquals(0, snapshot.getEpicCount());
+        assertEquals(0, snapshot.getSubtaskCount());
+        assertEquals(1, manager.getAllTasks().size(), "Вызовы передаются обернутому менеджеру");
+    }
+
+    @Test
+    void disabledMetricsRecordNothing() {
+        TaskManagerMetrics metrics = new TaskManagerMetrics(false);
+        InstrumentedTaskManager manager = Managers.getInstrumented(Managers.getDefault(), metrics);
+
+        manager.addTask(new Task("Задача", "Описание"));
+        assertEquals(0, metrics.snapshot().getOperation("addTask").getCount(), "Выключенные метрики не пишутся");
+        assertEquals(1, metrics.getTaskCount(), "Размеры доски доступны и без замеров");
+
+        metrics.setEnabled(true);
+        manager.addTask(new Task("Задача", "Описание"));
+        assertEquals(1, metrics.snapshot().getOperation("addTask").getCount(), "Включенные метрики пишутся");
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().getOperation("addTask").getCount(), "Сброс обнуляет счетчики");
+    }
+
+    @Test
+    void exceptionsAreStillTimed() {
+        InstrumentedTaskManager manager = Managers.getInstrumented(Managers.getDefault());
+
+        assertThrows(IllegalArgumentException.class, () -> manager.getAllTasks(-1, 10));
+        assertEquals(1, manager.getMetrics().snapshot().getOperation("getTasksPage").getCount(),
+                "Вызов, завершившийся исключением, тоже учитывается");
+    }
+
+    @Test
+    void persistenceMetrics() {
+        TaskManagerMetrics metrics = new TaskManagerMetrics();
+        File file = new File(tempDir.toFile(), "tasks.csv");
+        FileBackedTaskManager fileBacked = Managers.getFileBackedManager(file,
+                PersistenceConfig.journal().durability(Durability.FSYNC).metrics(metrics));
+        InstrumentedTaskManager manager = Managers.getInstrumented(fileBacked, metrics);
+
+        // Первая запись - полный снимок, следующие - в журнал
+        manager.addTask(new Task("Задача 1", "Описание"));
+        manager.addTask(new Task("Задача 2", "Описание"));
+        manager.addTask(new Task("Задача 3", "Описание"));
+        fileBacked.close();
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getOperation("save").getCount(), "Снимок сохранен один раз");
+        assertEquals(2, snapshot.getOperation("journalFlush").getCount(), "Две записи в журнал");
+        assertEquals(3, snapshot.getOperation("fsync").getCount(), "fsync снимка и каждой записи журнала");
+        assertEquals(file.length() + new File(file.getPath() + ".journal").length(), snapshot.getPersistedBytes(),
+                "Учтены все записанные байты");
+        assertEquals(3, snapshot.getOperation("addTask").getCount());
+    }
+
+    @Test
+    void registersMXBean() throws Exception {
+        TaskManagerMetrics metrics = new TaskManagerMetrics();
+        InstrumentedTaskManager manager = Managers.getInstrumented(Managers.getDefault(), metrics);
+        manager.addTask(new Task("Задача", "Описание"));
+
+        metrics.register("test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = metrics.getObjectName();
+            assertTrue(server.isRegistered(name), "Метрики зарегистрированы в JMX");
+            assertEquals(1, server.getAttribute(name, "TaskCount"));
+
+            boolean found = false;
+            for (CompositeData operation : (CompositeData[]) server.getAttribute(name, "Operations")) {
+                if ("addTask".equals(operation.get("name"))) {
+                    assertEquals(1L, operation.get("count"));
+                    found = true;
+                }
+            }
+            assertTrue(found, "Сводка по addTask доступна через JMX");
+            assertThrows(IllegalStateException.class, () -> metrics.register("test"), "Повторная регистрация запрещена");
+        } finally {
+            metrics.unregister();
+        }
+        assertNull(metrics.getObjectName(), "После отмены регистрации имени нет");
+    }
+}
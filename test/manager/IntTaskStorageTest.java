@@ -0,0 +1,60 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntTaskStorageTest {
+
+    @Test
+    void putGetRemoveKeepInsertionOrder() {
+        TaskStorage<Task> storage = new IntTaskStorage<>();
+        for (int id = 1; id <= 1000; id++) {
+            Task task = new Task("Задача " + id, "Описание");
+            task.setId(id);
+            assertNull(storage.put(id, task), "Новый id не заменяет задачу");
+        }
+        for (int id = 2; id <= 1000; id += 2) {
+            assertEquals(id, storage.remove(id).getId(), "remove возвращает удаленную задачу");
+        }
+
+        assertEquals(500, storage.size(), "Должна остаться половина задач");
+        assertNull(storage.get(2), "Удаленная задача не находится");
+        assertTrue(storage.containsKey(999), "Оставшаяся задача находится");
+        assertEquals(List.of(1, 3, 5), storage.values().stream().limit(3).map(Task::getId).toList(),
+                "Обход идет в порядке добавления");
+    }
+
+    @Test
+    void putReplacesTaskWithSameId() {
+        TaskStorage<Task> storage = new IntTaskStorage<>();
+        Task first = new Task("Первая", "Описание");
+        Task second = new Task("Вторая", "Описание");
+
+        storage.put(7, first);
+
+        assertSame(first, storage.put(7, second), "put возвращает прежнюю задачу");
+        assertSame(second, storage.get(7), "Задача заменяется");
+        assertEquals(1, storage.size(), "Размер не меняется при замене");
+
+        storage.clear();
+        assertTrue(storage.values().isEmpty(), "После очистки хранилище пустое");
+        assertNull(storage.get(7), "После очистки задача не находится");
+    }
+
+    @Test
+    void managerWorksWithEveryStorageType() {
+        for (TaskStorageType type : TaskStorageType.values()) {
+            TaskManager manager = new InMemoryTaskManager(type);
+            Task task = new Task("Задача", "Описание");
+            manager.addTask(task);
+            manager.deleteTaskById(task.getId());
+            manager.addTask(new Task("Другая", "Описание"));
+
+            assertEquals(1, manager.getAllTasks().size(), "Хранилище " + type + " должно работать");
+        }
+    }
+}
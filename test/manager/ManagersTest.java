@@ -1,6 +1,9 @@
 package manager;
 
 import org.junit.jupiter.api.Test;
+import tasks.Task;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,4 +24,17 @@ class ManagersTest {
         assertNotNull(historyManager, "HistoryManager не должен быть null");
         assertTrue(historyManager instanceof InMemoryHistoryManager, "HistoryManager должен быть экземпляром InMemoryHistoryManager");
     }
-}
\ No newline at end of file
+
+    @Test
+    void managersUseBoundedHistory() {
+        for (TaskManager taskManager : List.of(Managers.getDefault(2), Managers.getConcurrent(2))) {
+            for (int i = 0; i < 3; i++) {
+                Task task = new Task("Задача " + i, "Описание");
+                taskManager.addTask(task);
+                taskManager.getTaskById(task.getId());
+            }
+
+            assertEquals(2, taskManager.getHistory().size(), "История менеджера ограничена емкостью");
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tasks.TaskType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void flushAfterPartialWriteDoesNotDuplicateRecords() {
+        assertRetriedFlushWritesEachRecordOnce(true);
+    }
+
+    @Test
+    void flushAfterPartialWriteContinuesWhenFileCannotBeTruncated() {
+        assertRetriedFlushWritesEachRecordOnce(false);
+    }
+
+    private void assertRetriedFlushWritesEachRecordOnce(boolean truncatable) {
+        File file = tempDir.resolve("tasks.csv").toFile();
+        TaskJournal journal = new TaskJournal(file, false, new TaskManagerMetrics(false)) {
+            @Override
+            FileChannel openChannel() throws IOException {
+                return new FailingChannel(super.openChannel(), truncatable);
+            }
+        };
+        List<String> expected = List.of(TaskJournal.delete(TaskType.TASK, 1), TaskJournal.delete(TaskType.TASK, 2),
+                TaskJournal.clear(TaskType.EPIC));
+        for (String record : expected) {
+            journal.append(record);
+        }
+
+        assertThrows(ManagerSaveException.class, journal::flush, "Обрыв записи должен дать ошибку");
+        journal.flush();
+        journal.close();
+
+        List<String> replayed = new ArrayList<>();
+        journal.replay(replayed::add);
+        assertEquals(expected, replayed, "Каждая запись должна попасть в журнал ровно один раз");
+    }
+
+    // Первая запись обрывается на середине, вторая падает с ошибкой; дальше канал работает как обычно
+    private static class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private final boolean truncatable;
+        private int writes;
+
+        FailingChannel(FileChannel delegate, boolean truncatable) {
+            this.delegate = delegate;
+            this.truncatable = truncatable;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            writes++;
+            if (writes == 1) {
+                ByteBuffer half = src.duplicate();
+                half.limit(src.position() + src.remaining() / 2);
+                int written = delegate.write(half);
+                src.position(src.position() + written);
+                return written;
+            }
+            if (writes == 2) {
+                throw new IOException("Нет места на диске");
+            }
+            return delegate.write(src);
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (!truncatable) {
+                throw new IOException("Файл нельзя обрезать");
+            }
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void matchesBruteForceOnRandomOperations() {
+        Random random = new Random(42);
+        TimeIndex index = new TimeIndex();
+        Map<Integer, Task> expected = new HashMap<>();
+
+        for (int step = 0; step < 5_000; step++) {
+            int id = 1 + random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                expected.remove(id);
+                continue;
+            }
+            // Без проверки пересечений: индекс должен работать и с пересекающимися задачами из файла
+            Task task = task(id, random.nextInt(2_000), random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(60));
+            index.put(task);
+            expected.put(id, task);
+
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(2_000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(60));
+            Task found = index.findOverlap(start, end, Set.of());
+            Task first = expected.values().stream()
+                    .filter(other -> other.getStartTime().isBefore(end) && start.isBefore(other.getEndTime()))
+                    .min(order())
+                    .orElse(null);
+            assertEquals(first, found, "Находится первое по времени пересечение");
+        }
+
+        List<Task> sorted = new ArrayList<>(expected.values());
+        sorted.sort(order());
+        assertEquals(sorted, index.values(), "Задачи упорядочены по времени начала и id");
+        assertEquals(expected.size(), index.size());
+    }
+
+    @Test
+    void tryPutRejectsOverlapAndKeepsPreviousVersion() {
+        TimeIndex index = new TimeIndex();
+        assertNull(index.tryPut(task(1, 0, 60)));
+        assertNull(index.tryPut(task(2, 60, 30)), "Задача может начаться в момент окончания другой");
+
+        Task moved = task(2, 30, 30);
+        assertEquals(1, index.tryPut(moved).getId(), "Пересечение с первой задачей");
+        assertEquals(BASE.plusMinutes(60), index.values().get(1).getStartTime(), "Прежняя версия остается в индексе");
+
+        assertNull(index.tryPut(task(1, 10, 10)), "Задача не пересекается со своей прежней версией");
+        Task unscheduled = new Task("Задача", "Описание");
+        unscheduled.setId(2);
+        assertNull(index.tryPut(unscheduled));
+        assertEquals(List.of(1), index.values().stream().map(Task::getId).collect(Collectors.toList()),
+                "Задача без времени начала убирается из индекса");
+        assertNull(index.findOverlap(BASE.plusMinutes(10), BASE.plusMinutes(20), Set.of(1)),
+                "Игнорируемые задачи не считаются пересечением");
+    }
+
+    private static Task task(int id, int startMinute, int minutes) {
+        Task task = new Task("Задача " + id, "Описание", BASE.plusMinutes(startMinute),
+                minutes == 0 ? null : Duration.ofMinutes(minutes));
+        task.setId(id);
+        return task;
+    }
+
+    private static Comparator<Task> order() {
+        return Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId);
+    }
+}
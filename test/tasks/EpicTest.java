@@ -1,6 +1,11 @@
 package tasks;
 
 import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EpicTest {
@@ -33,4 +38,79 @@ class EpicTest {
 
         assertNotEquals(epic, task, "Эпик и задача с одинаковым ID не должны быть равны");
     }
-}
\ No newline at end of file
+
+    @Test
+    void subtaskIdsKeepInsertionOrderAfterRemovals() {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        List<Integer> expected = new ArrayList<>();
+        for (int id = 1; id <= 1000; id++) {
+            epic.addSubtask(id, Status.NEW);
+            expected.add(id);
+        }
+        for (int id = 1; id <= 1000; id += 3) {
+            epic.removeSubtask(id);
+            expected.remove((Integer) id);
+        }
+        epic.addSubtask(1, Status.DONE);
+        expected.add(1);
+
+        assertEquals(expected, epic.getSubtaskIds(), "Порядок добавления сохраняется");
+        assertTrue(epic.containsSubtask(999), "Оставшаяся подзадача должна находиться");
+        assertFalse(epic.containsSubtask(4), "Удаленная подзадача не должна находиться");
+        assertEquals(1, epic.getSubtaskCount(Status.DONE), "Счетчик учитывает повторно добавленную подзадачу");
+        assertEquals(expected.size() - 1, epic.getSubtaskCount(Status.NEW), "Счетчик уменьшается при удалении");
+    }
+
+    @Test
+    void subtaskIdsViewIsReadOnly() {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        epic.addSubtask(1, Status.NEW);
+
+        assertThrows(UnsupportedOperationException.class, () -> epic.getSubtaskIds().add(2),
+                "Список подзадач нельзя менять в обход эпика");
+        assertThrows(UnsupportedOperationException.class, () -> epic.getSubtaskIds().clear(),
+                "Список подзадач нельзя очистить в обход эпика");
+    }
+
+    @Test
+    void snapshotsKeepTheirSubtaskIdsWhileEpicChanges() {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        List<Integer> expected = new ArrayList<>();
+        List<List<Integer>> expectedVersions = new ArrayList<>();
+        List<EpicSnapshot> snapshots = new ArrayList<>();
+        for (int id = 1; id <= 500; id++) {
+            epic.addSubtask(id, Status.NEW);
+            expected.add(id);
+            if (id % 7 == 0) {
+                epic.removeSubtask(id - 3);
+                expected.remove((Integer) (id - 3));
+            }
+            snapshots.add(epic.snapshot());
+            expectedVersions.add(new ArrayList<>(expected));
+        }
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(expectedVersions.get(i), snapshots.get(i).getSubtaskIds(),
+                    "Снимок не видит изменений подзадач, сделанных после него");
+        }
+        assertEquals(expected.get(10), epic.getSubtaskIds().get(10), "Доступ по индексу идет в порядке добавления");
+    }
+
+    @Test
+    void indexedAccessFollowsChanges() {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        for (int id = 1; id <= 5; id++) {
+            epic.addSubtask(id, Status.NEW);
+        }
+        List<Integer> ids = epic.getSubtaskIds();
+        assertTrue(ids instanceof RandomAccess, "Список подзадач поддерживает быстрый доступ по индексу");
+        assertEquals(Integer.valueOf(3), ids.get(2));
+
+        epic.removeSubtask(2);
+        epic.addSubtask(6, Status.NEW);
+        assertEquals(Integer.valueOf(4), ids.get(2), "Доступ по индексу видит удаление");
+        assertEquals(Integer.valueOf(6), ids.get(4), "Доступ по индексу видит добавление");
+        assertThrows(IndexOutOfBoundsException.class, () -> ids.get(5));
+        assertEquals(List.of(1, 3, 4, 5, 6), epic.snapshot().getSubtaskIds());
+    }
+}
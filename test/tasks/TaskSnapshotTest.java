@@ -0,0 +1,71 @@
+package tasks;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSnapshotTest {
+
+    @Test
+    void snapshotIsReusedUntilTaskChanges() {
+        Task task = new Task("Задача", "Описание");
+        task.setId(1);
+
+        TaskSnapshot first = task.snapshot();
+
+        assertSame(first, task.snapshot(), "Без изменений задачи снимок не пересоздается");
+
+        task.setStatus(Status.DONE);
+        TaskSnapshot second = task.snapshot();
+
+        assertNotSame(first, second, "Изменение задачи дает новый снимок");
+        assertEquals(Status.NEW, first.getStatus(), "Старый снимок не меняется");
+        assertEquals(Status.DONE, second.getStatus());
+    }
+
+    @Test
+    void withMethodsReturnNewSnapshotOfSameKind() {
+        Subtask subtask = new Subtask("Подзадача", "Описание", Status.NEW, 5);
+        subtask.setId(7);
+        SubtaskSnapshot snapshot = subtask.snapshot();
+
+        SubtaskSnapshot renamed = snapshot.withName("Новое имя").withEpicId(6);
+
+        assertEquals("Подзадача", snapshot.getName(), "Исходный снимок не меняется");
+        assertEquals("Новое имя", renamed.getName());
+        assertEquals(6, renamed.getEpicId());
+        assertEquals(7, renamed.getId(), "id сохраняется");
+        assertEquals(snapshot, subtask.snapshot(), "Снимки с одинаковыми полями равны");
+        assertNotEquals(snapshot, renamed, "Снимки сравниваются по всем полям");
+
+        Subtask updated = renamed.toTask();
+
+        assertEquals(7, updated.getId());
+        assertEquals(6, updated.getEpicId());
+        assertEquals(renamed, updated.snapshot(), "Задача из снимка дает равный снимок");
+    }
+
+    @Test
+    void epicSnapshotsShareSubtaskList() {
+        Epic epic = new Epic("Эпик", "Описание");
+        epic.setId(1);
+        epic.addSubtask(2, Status.NEW);
+        epic.addSubtask(3, Status.DONE);
+
+        EpicSnapshot snapshot = epic.snapshot();
+        epic.setName("Новое имя");
+        EpicSnapshot renamed = epic.snapshot();
+
+        assertEquals(List.of(2, 3), snapshot.getSubtaskIds());
+        assertSame(snapshot.getSubtaskIds(), renamed.getSubtaskIds(), "Неизменившийся список подзадач разделяется");
+        assertSame(snapshot.getSubtaskIds(), snapshot.withDescription("Другое").getSubtaskIds());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getSubtaskIds().add(4));
+
+        epic.removeSubtask(2);
+
+        assertEquals(List.of(3), epic.snapshot().getSubtaskIds(), "Изменение подзадач дает новый список");
+        assertEquals(List.of(2, 3), snapshot.getSubtaskIds(), "Старый снимок не меняется");
+    }
+}
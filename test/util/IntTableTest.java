@@ -0,0 +1,62 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntTableTest {
+
+    @Test
+    void keysAndValuesKeepInsertionOrderAcrossCompaction() {
+        IntTable<String> table = new IntTable<>(4);
+        List<Integer> expected = new ArrayList<>();
+        for (int key = 0; key < 200; key++) {
+            table.put(key, "v" + key);
+            expected.add(key);
+        }
+        for (int key = 0; key < 200; key += 3) {
+            assertEquals("v" + key, table.remove(key), "remove возвращает удаленное значение");
+            expected.remove(Integer.valueOf(key));
+        }
+        table.put(0, "снова");
+        expected.add(0);
+
+        assertEquals(expected, new ArrayList<>(table.keys()), "Ключи идут в порядке добавления");
+        assertEquals("снова", table.values().stream().reduce((a, b) -> b).orElseThrow(),
+                "Повторно добавленный ключ - в конце");
+        assertTrue(table.keys().contains(1));
+        assertFalse(table.keys().contains(3), "Удаленный ключ не находится");
+    }
+
+    @Test
+    void putRejectsNullValue() {
+        IntTable<String> table = new IntTable<>(4);
+        assertThrows(IllegalArgumentException.class, () -> table.put(1, null),
+                "null означает удаленную запись, поэтому не хранится");
+    }
+
+    @Test
+    void iteratorsFailFastOnStructuralChange() {
+        IntTable<String> table = new IntTable<>(4);
+        for (int key = 0; key < 10; key++) {
+            table.put(key, "v" + key);
+        }
+
+        Iterator<Integer> keys = table.keys().iterator();
+        keys.next();
+        table.remove(5);
+        assertThrows(ConcurrentModificationException.class, keys::next, "Удаление во время обхода");
+
+        Iterator<String> values = table.values().iterator();
+        values.next();
+        table.put(1, "замена");
+        assertEquals("замена", values.next(), "Замена значения не ломает обход");
+        table.put(100, "новый");
+        assertThrows(ConcurrentModificationException.class, values::next, "Добавление во время обхода");
+    }
+}
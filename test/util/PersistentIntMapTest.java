@@ -0,0 +1,79 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentIntMapTest {
+
+    @Test
+    void matchesTreeMapOnRandomOperations() {
+        Random random = new Random(42);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            // Малые ключи дают плотные узлы, большие - рост высоты дерева
+            int key = random.nextInt(10) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.put(key, "v" + i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size(), "Размер должен совпадать");
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()), "Обход идет по возрастанию ключа");
+        for (int key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key), "Значение по ключу " + key);
+        }
+        assertNull(map.get(-1), "Отрицательного ключа нет");
+        assertThrows(IllegalArgumentException.class, () -> PersistentIntMap.<String>empty().put(-1, "v"));
+    }
+
+    @Test
+    void oldVersionsStayUnchanged() {
+        PersistentIntMap<String> first = PersistentIntMap.<String>empty().put(1, "a").put(2, "b");
+        PersistentIntMap<String> second = first.put(1, "c").put(100_000, "d");
+        PersistentIntMap<String> third = second.remove(2);
+
+        assertEquals(List.of("a", "b"), new ArrayList<>(first.values()), "Первая версия не меняется");
+        assertEquals(List.of("c", "b", "d"), new ArrayList<>(second.values()));
+        assertEquals(List.of("c", "d"), new ArrayList<>(third.values()));
+        assertSame(third, third.remove(2), "Удаление отсутствующего ключа не создает новую версию");
+        assertEquals(0, third.remove(1).remove(100_000).size(), "Удаление всех ключей дает пустое отображение");
+    }
+
+    @Test
+    void valuesFromKey() {
+        Random random = new Random(7);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(10) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(50_000);
+            expected.put(key, key);
+            map = map.put(key, key);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            int from = random.nextInt(3) == 0 ? expected.ceilingKey(random.nextInt(50_000)) : random.nextInt(60_000);
+            List<Integer> actual = new ArrayList<>();
+            map.valuesFrom(from).forEachRemaining(actual::add);
+            assertEquals(new ArrayList<>(expected.tailMap(from, true).values()), actual, "Обход с ключа " + from);
+        }
+
+        List<Integer> all = new ArrayList<>();
+        map.valuesFrom(-5).forEachRemaining(all::add);
+        assertEquals(expected.size(), all.size(), "Отрицательный ключ - обход с начала");
+        assertEquals(expected.containsKey(Integer.MAX_VALUE), map.valuesFrom(Integer.MAX_VALUE).hasNext(),
+                "С наибольшего ключа - не больше одного значения");
+        assertFalse(PersistentIntMap.<Integer>empty().valuesFrom(0).hasNext(), "Пустое отображение");
+    }
+}